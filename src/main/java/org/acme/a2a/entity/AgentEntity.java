@@ -5,10 +5,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Column;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.acme.a2a.model.WorkflowStep;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.LinkedHashMap;
 
 /**
  * Database entity representing a persisted virtual agent definition.
@@ -23,6 +27,10 @@ public class AgentEntity extends PanacheEntityBase {
     @Id
     public String id; // e.g., "support-bot-01"
 
+    // Bumped on every update; used for change detection and cache keys
+    @Version
+    public long version;
+
     public String name;
 
     @Column(length = 4096)
@@ -35,4 +43,33 @@ public class AgentEntity extends PanacheEntityBase {
     // Stores JSON list of other Agent IDs this one can call (A2A)
     @JdbcTypeCode(SqlTypes.JSON)
     public List<String> downstreamPeers = new ArrayList<>();
+
+    // Stores JSON map of peer ID -> keywords (or "re:" regexes) for fast-path routing
+    @JdbcTypeCode(SqlTypes.JSON)
+    public Map<String, List<String>> routingRules = new LinkedHashMap<>();
+
+    // Opt-in: reuse replies for identical messages (deterministic agents only)
+    public boolean responseCacheEnabled;
+
+    // Orchestrators: how many peers one request may be sent to in parallel,
+    // and how their replies are merged ("concat", "vote" or "synthesize")
+    public int maxFanOut = 1;
+
+    public String fanOutAggregation;
+
+    // Input token budget per model call; 0 uses agent.prompt.max-input-tokens
+    public int maxInputTokens;
+
+    // Admission limits; 0 uses the agent.rate-limit.* / agent.execution.* defaults.
+    // The rate limit covers every call in this agent's delegation tree.
+    public int rateLimitPerMinute;
+
+    public int rateLimitBurst;
+
+    public int maxConcurrentRequests;
+
+    // Stores JSON list of workflow steps; when present, requests run this
+    // fixed graph of peer calls instead of model-driven routing
+    @JdbcTypeCode(SqlTypes.JSON)
+    public List<WorkflowStep> workflow = new ArrayList<>();
 }
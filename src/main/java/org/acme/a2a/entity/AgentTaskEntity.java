@@ -0,0 +1,47 @@
+package org.acme.a2a.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Persisted state of an asynchronous agent task submitted through
+ * {@code POST /agents/{agentId}/tasks}.
+ *
+ * {@link #state} holds the A2A task state name ({@code submitted},
+ * {@code working}, {@code completed}, {@code failed}, {@code canceled} or
+ * {@code rejected}).
+ */
+@Entity
+@Table(name = "agent_tasks")
+public class AgentTaskEntity extends PanacheEntityBase {
+
+    @Id
+    @Column(length = 36)
+    public String id;
+
+    public String agentId;
+
+    @Column(length = 32)
+    public String state;
+
+    @Column(columnDefinition = "TEXT")
+    public String message;
+
+    public String sessionId;
+
+    @Column(length = 2048)
+    public String webhookUrl;
+
+    @Column(columnDefinition = "TEXT")
+    public String result;
+
+    @Column(length = 4096)
+    public String error;
+
+    public long createdAt;
+
+    public long updatedAt;
+}
@@ -0,0 +1,41 @@
+package org.acme.a2a.entity;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.acme.a2a.model.ConversationTurn;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persisted conversation history of one (agent, session) pair, used when
+ * {@code agent.memory.store=jdbc}.
+ *
+ * Rows are written in batches by {@code JdbcConversationStore}; older turns
+ * are folded into {@link #summary} once the token budget is exceeded.
+ */
+@Entity
+@Table(name = "agent_conversations")
+public class ConversationEntity extends PanacheEntityBase {
+
+    // "<agentId>/<sessionId>"
+    @Id
+    public String id;
+
+    public String agentId;
+
+    public String sessionId;
+
+    @Column(length = 16384)
+    public String summary;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    public List<ConversationTurn> turns = new ArrayList<>();
+
+    public long updatedAt;
+}
@@ -0,0 +1,10 @@
+package org.acme.a2a.model;
+
+/**
+ * CDI event fired when a persisted agent definition is updated or deleted.
+ *
+ * Observers use it to evict anything derived from the old definition, such as
+ * hydrated configs and cached routing decisions.
+ */
+public record AgentChangedEvent(String agentId) {
+}
@@ -1,6 +1,8 @@
 package org.acme.a2a.model;
 
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * Runtime configuration for a Virtual Agent.
@@ -9,10 +11,28 @@ import java.util.List;
 public class AgentConfig {
 
     public String id;
+    public long version;
     public String name;
     public String systemPrompt;
     public List<String> enabledTools;
     public List<String> downstreamPeers;
+    public Map<String, List<String>> routingRules;
+    public boolean responseCacheEnabled;
+    public int maxFanOut = 1;
+    public String fanOutAggregation;
+    public int maxInputTokens;
+    public int rateLimitPerMinute;
+    public int rateLimitBurst;
+    public int maxConcurrentRequests;
+
+    // Workflow steps in topological order (empty for routed agents)
+    public List<WorkflowStep> workflow;
+
+    // Routing rules compiled once at hydration for the fast-path router
+    public Map<String, List<Pattern>> compiledRoutingRules;
+
+    // System and routing prompts, built once per config version
+    public CompiledPrompts prompts;
 
     // Tools will be initialized by ToolFactory
     public List<Object> tools;
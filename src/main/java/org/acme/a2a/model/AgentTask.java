@@ -0,0 +1,22 @@
+package org.acme.a2a.model;
+
+/**
+ * Client view of an asynchronous agent task.
+ *
+ * @param state  A2A task state: {@code submitted}, {@code working},
+ *               {@code completed}, {@code failed}, {@code canceled} or
+ *               {@code rejected}
+ * @param result the agent's reply once {@code completed}
+ * @param error  why the task did not complete, for {@code failed} and
+ *               {@code rejected} tasks
+ */
+public record AgentTask(
+        String id,
+        String agentId,
+        String state,
+        String result,
+        String error,
+        long createdAt,
+        long updatedAt
+) {
+}
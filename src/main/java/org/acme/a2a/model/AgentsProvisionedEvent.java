@@ -0,0 +1,13 @@
+package org.acme.a2a.model;
+
+import java.util.List;
+
+/**
+ * CDI event fired after new agent definitions have been committed.
+ *
+ * New agents have nothing cached yet, so only registry views (such as the
+ * agent listing snapshot) need to react. {@code agentIds} is empty when the
+ * event was relayed from another gateway node.
+ */
+public record AgentsProvisionedEvent(List<String> agentIds) {
+}
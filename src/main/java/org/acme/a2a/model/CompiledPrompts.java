@@ -0,0 +1,17 @@
+package org.acme.a2a.model;
+
+import dev.langchain4j.data.message.SystemMessage;
+
+/**
+ * Prompts prepared once per hydrated {@link AgentConfig} version.
+ *
+ * @param system       the agent's system message
+ * @param routing      routing instructions for orchestrators, {@code null}
+ *                     for agents without downstream peers
+ * @param synthesis    system message for merging fan-out replies, {@code null}
+ *                     unless the agent can fan out
+ * @param systemTokens estimated size of {@code system}
+ */
+public record CompiledPrompts(SystemMessage system, SystemMessage routing, SystemMessage synthesis,
+                              int systemTokens) {
+}
@@ -0,0 +1,11 @@
+package org.acme.a2a.model;
+
+/**
+ * One exchange of a session: the user's message and the agent's reply.
+ *
+ * @param user      the user message
+ * @param assistant the agent's reply
+ * @param createdAt epoch milliseconds when the exchange was recorded
+ */
+public record ConversationTurn(String user, String assistant, long createdAt) {
+}
@@ -0,0 +1,27 @@
+package org.acme.a2a.model;
+
+import java.util.List;
+
+/**
+ * Raised when a delegated call would run an agent that is already executing
+ * further up the same call chain (for example A → B → A).
+ */
+public class DelegationLoopException extends RuntimeException {
+
+    private final String agentId;
+    private final List<String> callChain;
+
+    public DelegationLoopException(String agentId, List<String> callChain) {
+        super("Delegation loop detected: " + String.join(" -> ", callChain) + " -> " + agentId);
+        this.agentId = agentId;
+        this.callChain = List.copyOf(callChain);
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public List<String> getCallChain() {
+        return callChain;
+    }
+}
@@ -0,0 +1,136 @@
+package org.acme.a2a.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Describes where a request sits in a delegation tree.
+ *
+ * @param rootAgentId agent that received the original client request; rate
+ *                    limits for the whole tree are charged to it
+ * @param depth       delegation hops from the root (0 for client requests)
+ * @param sessionId   conversation session of the root request; delegated
+ *                    calls carry none
+ * @param deadline    when the whole request must be answered; {@code null}
+ *                    until the executor assigns the default budget
+ * @param callChain   agents already executing on the path to this call, root
+ *                    first; used to reject delegation loops
+ */
+public record InvocationContext(String rootAgentId, int depth, String sessionId, Instant deadline,
+                                List<String> callChain) {
+
+    /**
+     * Header carrying the remaining time budget, in milliseconds, on
+     * delegated HTTP calls.
+     */
+    public static final String DEADLINE_HEADER = "X-Agent-Deadline-Ms";
+
+    /** Header carrying {@link #depth()} on delegated HTTP calls. */
+    public static final String DEPTH_HEADER = "X-Agent-Depth";
+
+    /** Header carrying {@link #rootAgentId()} on delegated HTTP calls. */
+    public static final String ROOT_HEADER = "X-Agent-Root";
+
+    /** Header carrying {@link #callChain()}, comma-separated, on delegated HTTP calls. */
+    public static final String CALL_CHAIN_HEADER = "X-Agent-Call-Chain";
+
+    /**
+     * Header carrying the shared peer token; the other delegation headers are
+     * only honoured on requests that present it.
+     */
+    public static final String PEER_TOKEN_HEADER = "X-Agent-Peer-Token";
+
+    public InvocationContext {
+        callChain = callChain == null ? List.of() : List.copyOf(callChain);
+    }
+
+    public static InvocationContext root(String agentId, String sessionId) {
+        return new InvocationContext(agentId, 0, sessionId, null, List.of());
+    }
+
+    /**
+     * Rebuilds the context of a delegated HTTP call from its headers.
+     *
+     * @param budgetMillis remaining time budget, or {@code null} for none
+     * @param callChain    comma-separated agent IDs, or {@code null}
+     */
+    public static InvocationContext fromHeaders(String rootAgentId, Integer depth, Long budgetMillis,
+                                                String callChain) {
+        Instant deadline = budgetMillis == null ? null : Instant.now().plusMillis(budgetMillis);
+        List<String> chain = new ArrayList<>();
+        if (callChain != null) {
+            for (String agentId : callChain.split(",")) {
+                if (!agentId.isBlank()) {
+                    chain.add(agentId.strip());
+                }
+            }
+        }
+        return new InvocationContext(rootAgentId, depth == null ? 0 : Math.max(0, depth), null, deadline, chain);
+    }
+
+    /**
+     * Context for a call this request makes to a downstream peer. The peer
+     * inherits the remaining time budget and the call chain.
+     */
+    public InvocationContext delegated() {
+        return new InvocationContext(rootAgentId, depth + 1, null, deadline, callChain);
+    }
+
+    /**
+     * Context for running {@code agentId} within this request.
+     *
+     * @throws DelegationLoopException if {@code agentId} is already on the call chain
+     */
+    public InvocationContext enter(String agentId) {
+        if (callChain.contains(agentId)) {
+            throw new DelegationLoopException(agentId, callChain);
+        }
+        List<String> chain = new ArrayList<>(callChain);
+        chain.add(agentId);
+        return new InvocationContext(rootAgentId, depth, sessionId, deadline, chain);
+    }
+
+    /**
+     * @return whether delegating to {@code agentId} would revisit an agent on the chain
+     */
+    public boolean wouldLoop(String agentId) {
+        return callChain.contains(agentId);
+    }
+
+    /**
+     * @return the call chain as sent in {@link #CALL_CHAIN_HEADER}
+     */
+    public String callChainHeader() {
+        return String.join(",", callChain);
+    }
+
+    /**
+     * @return this context, with a deadline {@code budget} from now if it has none
+     */
+    public InvocationContext withDefaultDeadline(Duration budget) {
+        return deadline != null
+                ? this
+                : new InvocationContext(rootAgentId, depth, sessionId, Instant.now().plus(budget), callChain);
+    }
+
+    /**
+     * @return the milliseconds left until the deadline, or {@code null} without one
+     */
+    public Long remainingMillis() {
+        return deadline == null ? null : Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+    }
+
+    /**
+     * @return the time left until the deadline, capped at {@code cap}; zero
+     *         or negative once the deadline has passed
+     */
+    public Duration remaining(Duration cap) {
+        if (deadline == null) {
+            return cap;
+        }
+        Duration left = Duration.between(Instant.now(), deadline);
+        return left.compareTo(cap) < 0 ? left : cap;
+    }
+}
@@ -0,0 +1,25 @@
+package org.acme.a2a.model;
+
+/**
+ * Per-item outcome of a bulk provisioning request.
+ *
+ * @param id     agent id as submitted (may be {@code null} for unreadable items)
+ * @param status one of {@code created}, {@code conflict}, {@code invalid} or
+ *               {@code failed}
+ * @param error  human-readable reason when the item was not created
+ */
+public record ProvisionResult(String id, String status, String error) {
+
+    public static final String CREATED = "created";
+    public static final String CONFLICT = "conflict";
+    public static final String INVALID = "invalid";
+    public static final String FAILED = "failed";
+
+    public static ProvisionResult created(String id) {
+        return new ProvisionResult(id, CREATED, null);
+    }
+
+    public boolean isCreated() {
+        return CREATED.equals(status);
+    }
+}
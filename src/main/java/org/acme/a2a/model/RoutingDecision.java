@@ -0,0 +1,35 @@
+package org.acme.a2a.model;
+
+import java.util.List;
+
+/**
+ * Outcome of an orchestrator routing step.
+ *
+ * @param targets    chosen peer ids in priority order; empty when the
+ *                   orchestrator should answer itself (SELF). More than one
+ *                   target means the request fans out.
+ * @param source     which stage produced the decision, e.g. {@code rules},
+ *                   {@code similarity}, {@code cache} or {@code llm}
+ * @param confidence stage-specific confidence between 0 and 1
+ */
+public record RoutingDecision(List<String> targets, String source, double confidence) {
+
+    public RoutingDecision {
+        targets = targets == null ? List.of() : List.copyOf(targets);
+    }
+
+    public static RoutingDecision single(String target, String source, double confidence) {
+        return new RoutingDecision(target == null ? List.of() : List.of(target), source, confidence);
+    }
+
+    /**
+     * @return the primary target, or {@code null} for SELF
+     */
+    public String target() {
+        return targets.isEmpty() ? null : targets.get(0);
+    }
+
+    public boolean isSelf() {
+        return targets.isEmpty();
+    }
+}
@@ -0,0 +1,24 @@
+package org.acme.a2a.model;
+
+import java.util.List;
+
+/**
+ * One node of a declared agent workflow.
+ *
+ * @param id        step identifier, unique within the workflow
+ * @param agent     peer agent that executes the step; must be listed in the
+ *                  workflow agent's {@code downstreamPeers}
+ * @param dependsOn ids of the steps whose outputs feed this step
+ * @param input     optional message template; {@code {{input}}} is the original
+ *                  request and {@code {{<stepId>}}} the output of that step,
+ *                  which must be a direct or transitive dependency.
+ *                  Without a template, a step receives the original request
+ *                  (no dependencies), its single dependency's output, or all
+ *                  dependency outputs labelled by step id.
+ */
+public record WorkflowStep(String id, String agent, List<String> dependsOn, String input) {
+
+    public WorkflowStep {
+        dependsOn = dependsOn == null ? List.of() : List.copyOf(dependsOn);
+    }
+}
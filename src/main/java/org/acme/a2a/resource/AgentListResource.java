@@ -1,10 +1,18 @@
 package org.acme.a2a.resource;
 
+import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
-import org.acme.a2a.entity.AgentEntity;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import org.acme.a2a.service.AgentCatalog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.util.List;
@@ -14,33 +22,72 @@ import java.util.stream.Collectors;
  * Provides a lightweight registry view of configured agents for the UI.
  *
  * The endpoint returns agent identity, prompt preview, enabled tools, and
- * downstream relationships used to render orchestration topology.
+ * downstream relationships used to render orchestration topology. Results are
+ * paginated by agent id ({@code after} cursor, next page announced in a
+ * {@code Link} header), can be filtered by tool or peer, and carry an ETag so
+ * polling clients get {@code 304 Not Modified} without a database query.
  */
 @Path("/api/agents")
 public class AgentListResource {
 
     private static final Logger LOG = Logger.getLogger(AgentListResource.class);
 
+    @Inject
+    AgentCatalog catalog;
+
+    @ConfigProperty(name = "agent.registry.page-size", defaultValue = "500")
+    int defaultPageSize;
+
+    @ConfigProperty(name = "agent.registry.max-page-size", defaultValue = "1000")
+    int maxPageSize;
+
     @GET
     @Produces(MediaType.APPLICATION_JSON)
-    public List<AgentInfo> listAgents() {
-        LOG.info("Fetching all agents with relationships");
-        
-        List<AgentEntity> agents = AgentEntity.listAll();
-        
-        return agents.stream()
+    public Response listAgents(@QueryParam("after") String after,
+                               @QueryParam("limit") Integer limit,
+                               @QueryParam("tool") String tool,
+                               @QueryParam("peer") String peer,
+                               @Context Request request,
+                               @Context UriInfo uriInfo) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        AgentCatalog.PageQuery query = new AgentCatalog.PageQuery(blankToNull(after), pageSize,
+                blankToNull(tool), blankToNull(peer));
+
+        EntityTag etag = new EntityTag(catalog.etag(query), true);
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+
+        LOG.debugf("Fetching agents page (after=%s, limit=%d, tool=%s, peer=%s)", after, pageSize, tool, peer);
+        AgentCatalog.Page page = catalog.page(query);
+
+        List<AgentInfo> agents = page.agents().stream()
             .map(agent -> new AgentInfo(
-                agent.id,
-                agent.name,
-                agent.systemPrompt != null ? agent.systemPrompt.substring(0, Math.min(100, agent.systemPrompt.length())) + "..." : "",
-                agent.enabledTools != null ? agent.enabledTools : List.of(),
-                agent.downstreamPeers != null ? agent.downstreamPeers : List.of()
+                agent.id(),
+                agent.name(),
+                agent.promptPreview() != null ? agent.promptPreview() + "..." : "",
+                agent.enabledTools(),
+                agent.downstreamPeers()
             ))
             .collect(Collectors.toList());
+
+        Response.ResponseBuilder response = Response.ok(agents).tag(etag);
+        if (page.nextCursor() != null) {
+            response.link(uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("after", page.nextCursor())
+                    .replaceQueryParam("limit", pageSize)
+                    .build(), "next");
+        }
+        return response.build();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
 
     /**
-     * DTO returned by {@link #listAgents()} for dashboard rendering.
+     * DTO returned by {@link #listAgents} for dashboard rendering.
      */
     public static record AgentInfo(
         String id,
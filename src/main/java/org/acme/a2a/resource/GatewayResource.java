@@ -1,48 +1,158 @@
 package org.acme.a2a.resource;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.acme.a2a.service.AgentService;
 import org.acme.a2a.entity.AgentEntity;
 import org.acme.a2a.model.AgentConfig;
-import org.acme.a2a.service.DynamicAgentService;
+import org.acme.a2a.model.ProvisionResult;
+import org.acme.a2a.service.AgentExecutor;
+import org.acme.a2a.service.AgentTaskService;
+import org.acme.a2a.service.PeerTrust;
+import org.acme.a2a.service.RequestLog;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.jboss.resteasy.reactive.server.ServerExceptionMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Entry-point resource for agent lifecycle and per-agent request dispatch.
  *
- * It provisions agent definitions and routes `/agents/{agentId}` requests to a
- * dedicated {@link VirtualAgentResource} instance.
+ * It provisions, updates and deletes agent definitions and routes
+ * `/agents/{agentId}/...` requests to a dedicated {@link VirtualAgentResource}
+ * instance.
  */
 @Path("/agents")
 public class GatewayResource {
 
-    public GatewayResource() {
-        System.err.println("!!! GATEWAY RESOURCE INSTANTIATED !!!");
-    }
+    private static final Logger LOG = Logger.getLogger(GatewayResource.class);
+    private static final String NDJSON = "application/x-ndjson";
 
     @Inject
     AgentService service;
 
     @Inject
-    DynamicAgentService agentService;
+    AgentExecutor agentExecutor;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    RequestLog requestLog;
+
+    @Inject
+    AgentTaskService taskService;
+
+    @Inject
+    PeerTrust peerTrust;
+
+    @ConfigProperty(name = "agent.provisioning.bulk-chunk-size", defaultValue = "500")
+    int bulkChunkSize;
 
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     public Response createAgent(AgentEntity entity) {
-        System.err.println("!!! Creating agent: " + entity.name);
+        LOG.debugf("Creating agent %s", entity.id);
         service.provision(entity);
         return Response.status(201).build();
     }
 
+    /**
+     * Bulk import: accepts a JSON array or an NDJSON stream of agent
+     * definitions. Items are read incrementally and written in chunked
+     * transactions; the response reports the outcome of every item.
+     */
+    @POST
+    @Path("bulk")
+    @Consumes({MediaType.APPLICATION_JSON, NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    public BulkProvisionResponse bulkCreateAgents(InputStream body) throws IOException {
+        List<ProvisionResult> results = new ArrayList<>();
+        List<AgentEntity> chunk = new ArrayList<>(bulkChunkSize);
+
+        // readValues() unwraps a top-level array and also reads whitespace-separated documents
+        try (MappingIterator<AgentEntity> items = objectMapper.readerFor(AgentEntity.class).readValues(body)) {
+            while (items.hasNextValue()) {
+                chunk.add(items.nextValue());
+                if (chunk.size() >= bulkChunkSize) {
+                    results.addAll(provisionChunk(chunk));
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            // Keep what was read so far; the rest of the stream is unusable
+            results.addAll(provisionChunk(chunk));
+            chunk.clear();
+            results.add(new ProvisionResult(null, ProvisionResult.INVALID, "Unreadable item: " + e.getMessage()));
+        }
+        results.addAll(provisionChunk(chunk));
+
+        long created = results.stream().filter(ProvisionResult::isCreated).count();
+        return new BulkProvisionResponse((int) created, results.size() - (int) created, results);
+    }
+
+    private List<ProvisionResult> provisionChunk(List<AgentEntity> chunk) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return service.provisionBatch(chunk);
+        } catch (RuntimeException e) {
+            // The whole chunk was rolled back, e.g. an ID was taken concurrently
+            LOG.warnf("Bulk provisioning chunk of %d agents failed: %s", chunk.size(), e.getMessage());
+            List<ProvisionResult> failed = new ArrayList<>(chunk.size());
+            for (AgentEntity entity : chunk) {
+                failed.add(new ProvisionResult(entity == null ? null : entity.id, ProvisionResult.FAILED,
+                        "Chunk rolled back: " + e.getMessage()));
+            }
+            return failed;
+        }
+    }
+
+    @PUT
+    @Path("{agentId}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response updateAgent(@PathParam("agentId") String agentId, AgentEntity entity) {
+        if (!service.update(agentId, entity)) {
+            throw new NotFoundException("Virtual Agent '" + agentId + "' does not exist.");
+        }
+        return Response.noContent().build();
+    }
+
+    @DELETE
+    @Path("{agentId}")
+    public Response deleteAgent(@PathParam("agentId") String agentId) {
+        if (!service.delete(agentId)) {
+            throw new NotFoundException("Virtual Agent '" + agentId + "' does not exist.");
+        }
+        return Response.noContent().build();
+    }
+
+    // Invalid definitions (tools, workflow, routing rules, a taken ID) are the
+    // client's mistake, not a server error
+    @ServerExceptionMapper
+    public Response invalidAgent(IllegalArgumentException e) {
+        return Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build();
+    }
+
     @Path("{agentId}")
     public VirtualAgentResource dispatch(@PathParam("agentId") String agentId) {
-        System.err.println("!!! Dispatching for agent: " + agentId);
         // 1. Load the configuration for the requested ID
         AgentConfig config = service.loadConfig(agentId);
 
@@ -54,6 +164,15 @@ public class GatewayResource {
         // 3. Create and return the virtual handler
         // The JAX-RS runtime will then call the matching @GET/@POST
         // method on THIS returned object.
-        return new VirtualAgentResource(config, agentService);
+        return new VirtualAgentResource(config, agentExecutor, requestLog, taskService, peerTrust);
     }
+
+    /**
+     * Summary returned by {@link #bulkCreateAgents(InputStream)}.
+     */
+    public static record BulkProvisionResponse(
+        int created,
+        int failed,
+        List<ProvisionResult> items
+    ) {}
 }
@@ -1,14 +1,34 @@
 package org.acme.a2a.resource;
 
+import io.smallrye.common.annotation.RunOnVirtualThread;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.a2a.spec.TaskState;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.acme.a2a.model.AgentConfig;
-import org.acme.a2a.service.DynamicAgentService;
+import org.acme.a2a.model.DelegationLoopException;
+import org.acme.a2a.model.InvocationContext;
+import org.acme.a2a.service.AgentExecutor;
+import org.acme.a2a.service.AgentTaskService;
+import org.acme.a2a.service.DeadlineExceededException;
+import org.acme.a2a.service.PeerTrust;
+import org.acme.a2a.service.RateLimitedException;
+import org.acme.a2a.service.RequestLog;
+import org.jboss.logging.Logger;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import java.net.URI;
+import java.time.Duration;
 import java.util.Map;
 
 /**
@@ -17,13 +37,24 @@ import java.util.Map;
  */
 public class VirtualAgentResource {
 
+    // 508 Loop Detected (RFC 5842)
+    private static final int LOOP_DETECTED = 508;
+
+    private static final Logger LOG = Logger.getLogger(VirtualAgentResource.class);
+
     private final AgentConfig config;
-    private final DynamicAgentService agentService;
+    private final AgentExecutor agentExecutor;
+    private final RequestLog requestLog;
+    private final AgentTaskService taskService;
+    private final PeerTrust peerTrust;
 
-    public VirtualAgentResource(AgentConfig config, DynamicAgentService agentService) {
-        System.err.println("!!! VirtualAgentResource INSTANTIATED for " + config.id);
+    public VirtualAgentResource(AgentConfig config, AgentExecutor agentExecutor, RequestLog requestLog,
+                                AgentTaskService taskService, PeerTrust peerTrust) {
         this.config = config;
-        this.agentService = agentService;
+        this.agentExecutor = agentExecutor;
+        this.requestLog = requestLog;
+        this.taskService = taskService;
+        this.peerTrust = peerTrust;
     }
 
     // Endpoint: /agents/{id}/.well-known/agent-card.json
@@ -41,23 +72,156 @@ public class VirtualAgentResource {
     }
 
     // Endpoint: /agents/{id}/message
+    // The LLM call runs on a virtual thread; the request worker is released
+    // as soon as the Uni is returned.
     @POST
     @Path("message")
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public Response handleMessage(Map<String, String> request) {
+    public Uni<Response> handleMessage(Map<String, String> request,
+                                       @HeaderParam(InvocationContext.ROOT_HEADER) String rootAgentId,
+                                       @HeaderParam(InvocationContext.DEPTH_HEADER) Integer depth,
+                                       @HeaderParam(InvocationContext.CALL_CHAIN_HEADER) String callChain,
+                                       @HeaderParam(InvocationContext.DEADLINE_HEADER) Long budgetMillis,
+                                       @HeaderParam(InvocationContext.PEER_TOKEN_HEADER) String peerToken) {
+        long start = System.nanoTime();
         String userMessage = request.get("message");
-        System.err.println("!!! Handling message: " + userMessage);
 
+        return agentExecutor.submit(config, userMessage, invocationFor(request, rootAgentId, depth, callChain, budgetMillis, peerToken))
+                .map(reply -> Response.ok(Map.of("reply", reply)).build())
+                .onFailure(RateLimitedException.class).recoverWithItem(e -> rateLimited((RateLimitedException) e))
+                .onFailure(DelegationLoopException.class).recoverWithItem(VirtualAgentResource::loopDetected)
+                .onFailure(DeadlineExceededException.class).recoverWithItem(e ->
+                        Response.status(Response.Status.GATEWAY_TIMEOUT).entity(Map.of("error", e.getMessage())).build())
+                .onFailure().recoverWithItem(e -> {
+                    LOG.errorf(e, "Request for agent %s failed", config.id);
+                    return Response.serverError().entity(Map.of("error", String.valueOf(e.getMessage()))).build();
+                })
+                .invoke(response -> requestLog.record(config.id, "message", response.getStatus(), start,
+                        userMessage, replyOf(response)));
+    }
+
+    // Endpoint: /agents/{id}/message/stream
+    // Server-Sent Events, one event per model token; delegated peers are relayed.
+    // Admission runs before the stream starts, so rejections and loops get
+    // the same 429/508 status as /message instead of an event.
+    @POST
+    @Path("message/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    @RestStreamElementType(MediaType.TEXT_PLAIN)
+    @Consumes(MediaType.APPLICATION_JSON)
+    @RunOnVirtualThread
+    public Multi<String> streamMessage(Map<String, String> request,
+                                       @HeaderParam(InvocationContext.ROOT_HEADER) String rootAgentId,
+                                       @HeaderParam(InvocationContext.DEPTH_HEADER) Integer depth,
+                                       @HeaderParam(InvocationContext.CALL_CHAIN_HEADER) String callChain,
+                                       @HeaderParam(InvocationContext.DEADLINE_HEADER) Long budgetMillis,
+                                       @HeaderParam(InvocationContext.PEER_TOKEN_HEADER) String peerToken) {
+        long start = System.nanoTime();
+        String userMessage = request.get("message");
+        StringBuilder streamed = new StringBuilder();
+
+        Multi<String> stream;
         try {
-            System.err.println("!!! Using agentService: " + agentService);
-
-            String reply = agentService.processRequest(config, userMessage);
-            return Response.ok(Map.of("reply", reply)).build();
-        } catch (Exception e) {
-            System.err.println("!!! ERROR in handleMessage: " + e.getMessage());
-            e.printStackTrace();
-            return Response.serverError().entity(Map.of("error", e.getMessage())).build();
+            stream = agentExecutor.openStream(config, userMessage,
+                    invocationFor(request, rootAgentId, depth, callChain, budgetMillis, peerToken));
+        } catch (RateLimitedException e) {
+            requestLog.record(config.id, "stream", Response.Status.TOO_MANY_REQUESTS.getStatusCode(), start,
+                    userMessage, null);
+            throw new WebApplicationException(rateLimited(e));
+        } catch (DelegationLoopException e) {
+            requestLog.record(config.id, "stream", LOOP_DETECTED, start, userMessage, null);
+            throw new WebApplicationException(loopDetected(e));
+        }
+        return stream
+                .onItem().invoke(streamed::append)
+                .onTermination().invoke((failure, cancelled) -> requestLog.record(config.id, "stream",
+                        failure != null ? 500 : 200, start, userMessage, streamed.toString()));
+    }
+
+    // Endpoint: /agents/{id}/tasks
+    // Queues the message and answers 202 with the task at once; the result is
+    // read from /tasks/{taskId} or delivered to the optional webhookUrl.
+    @POST
+    @Path("tasks")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Uni<Response> submitTask(Map<String, String> request) {
+        String userMessage = request.get("message");
+        if (userMessage == null || userMessage.isBlank()) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "Please provide a non-empty 'message' field.")).build());
+        }
+
+        return taskService.submit(config, userMessage, request.get("sessionId"), request.get("webhookUrl"))
+                .map(task -> Response.accepted(task)
+                        .location(URI.create("/agents/" + config.id + "/tasks/" + task.id()))
+                        .build())
+                .onFailure(IllegalArgumentException.class).recoverWithItem(e ->
+                        Response.status(Response.Status.BAD_REQUEST).entity(Map.of("error", e.getMessage())).build())
+                .onFailure(RateLimitedException.class).recoverWithItem(e -> rateLimited((RateLimitedException) e));
+    }
+
+    // Endpoint: /agents/{id}/tasks/{taskId}?wait=<seconds>
+    // With wait, an unfinished task is long-polled until it finishes or the wait ends.
+    @GET
+    @Path("tasks/{taskId}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> getTask(@PathParam("taskId") String taskId,
+                                 @QueryParam("wait") @DefaultValue("0") int waitSeconds) {
+        return taskService.get(config.id, taskId, Duration.ofSeconds(Math.max(0, waitSeconds)))
+                .map(task -> task == null ? taskNotFound(taskId) : Response.ok(task).build());
+    }
+
+    // Endpoint: /agents/{id}/tasks/{taskId}/cancel
+    @POST
+    @Path("tasks/{taskId}/cancel")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Uni<Response> cancelTask(@PathParam("taskId") String taskId) {
+        return taskService.cancel(config.id, taskId)
+                .map(task -> {
+                    if (task == null) {
+                        return taskNotFound(taskId);
+                    }
+                    return TaskState.CANCELED.asString().equals(task.state())
+                            ? Response.ok(task).build()
+                            : Response.status(Response.Status.CONFLICT).entity(task).build();
+                });
+    }
+
+    private Response taskNotFound(String taskId) {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "Task '" + taskId + "' does not exist for agent '" + config.id + "'."))
+                .build();
+    }
+
+    private static Response rateLimited(RateLimitedException e) {
+        return Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header("Retry-After", e.getRetryAfterSeconds())
+                .entity(Map.of("error", e.getMessage()))
+                .build();
+    }
+
+    private static Response loopDetected(Throwable e) {
+        return Response.status(LOOP_DETECTED).entity(Map.of("error", e.getMessage())).build();
+    }
+
+    private static String replyOf(Response response) {
+        return response.getEntity() instanceof Map<?, ?> body && body.get("reply") instanceof String reply ? reply : null;
+    }
+
+    // Delegating gateways send the root agent (so its rate limit covers this
+    // call), the hop depth, the agents already on the call chain and the time
+    // left on the caller's deadline. These headers are only honoured from
+    // gateways that present the peer token; anyone else starts a new tree
+    // rooted at this agent.
+    private InvocationContext invocationFor(Map<String, String> request, String rootAgentId, Integer depth,
+                                            String callChain, Long budgetMillis, String peerToken) {
+        if (rootAgentId != null && !rootAgentId.isBlank() && peerTrust.isTrusted(peerToken)) {
+            return InvocationContext.fromHeaders(rootAgentId, depth, budgetMillis, callChain);
         }
+        // A client may shorten its budget, within bounds
+        return InvocationContext.root(config.id, request.get("sessionId"))
+                .withDefaultDeadline(agentExecutor.clientBudget(budgetMillis));
     }
-}
\ No newline at end of file
+}
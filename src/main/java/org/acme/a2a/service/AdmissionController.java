@@ -0,0 +1,149 @@
+package org.acme.a2a.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentChangedEvent;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for agent executions.
+ *
+ * Every execution in a delegation tree takes a token from the root agent's
+ * bucket ({@code rateLimitPerMinute}/{@code rateLimitBurst}), so an
+ * orchestrator's sub-calls count against it rather than against the peers.
+ * Each executing agent is also capped to {@code maxConcurrentRequests}
+ * concurrent executions; waiters are served in FIFO order for at most
+ * {@code agent.execution.acquire-timeout}, or until their deadline if that
+ * comes first. Agents that set no limits use the
+ * {@code agent.rate-limit.*} and {@code agent.execution.*} defaults.
+ */
+@ApplicationScoped
+public class AdmissionController {
+
+    private static final Logger LOG = Logger.getLogger(AdmissionController.class);
+
+    @Inject
+    AgentService agentService;
+
+    @ConfigProperty(name = "agent.execution.max-concurrent-per-agent", defaultValue = "64")
+    int defaultMaxConcurrent;
+
+    @ConfigProperty(name = "agent.execution.acquire-timeout", defaultValue = "5s")
+    Duration acquireTimeout;
+
+    // 0 disables rate limiting for agents without their own limit
+    @ConfigProperty(name = "agent.rate-limit.per-minute", defaultValue = "0")
+    int defaultRatePerMinute;
+
+    @ConfigProperty(name = "agent.rate-limit.burst", defaultValue = "0")
+    int defaultBurst;
+
+    private final Map<String, AgentLimits> limits = new ConcurrentHashMap<>();
+
+    /**
+     * Admits one execution of {@code config} within {@code invocation}.
+     *
+     * @return a permit to close when the execution ends
+     * @throws AgentBusyException        if the root agent is over its rate limit or
+     *                                   {@code config} has no free slot in time
+     * @throws DeadlineExceededException if the invocation's deadline passes
+     *                                   before a slot frees up
+     */
+    public Permit admit(AgentConfig config, InvocationContext invocation) {
+        chargeRoot(config, invocation);
+
+        Semaphore semaphore = limitsFor(config).concurrency();
+        // Never wait for a slot past the caller's deadline
+        Duration wait = invocation.remaining(acquireTimeout);
+        try {
+            if (!semaphore.tryAcquire(Math.max(0, wait.toMillis()), TimeUnit.MILLISECONDS)) {
+                if (wait.compareTo(acquireTimeout) < 0) {
+                    throw new DeadlineExceededException("The request deadline passed while waiting for agent '"
+                            + config.id + "' to free up.");
+                }
+                throw new AgentBusyException(config.id);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AgentBusyException(config.id);
+        }
+        return new Permit(semaphore);
+    }
+
+    private void chargeRoot(AgentConfig config, InvocationContext invocation) {
+        String rootId = invocation.rootAgentId() != null ? invocation.rootAgentId() : config.id;
+        AgentConfig rootConfig = rootId.equals(config.id) ? config : agentService.loadConfig(rootId);
+        if (rootConfig == null) {
+            // Root lives on another gateway; it is charged there
+            return;
+        }
+
+        TokenBucket bucket = limitsFor(rootConfig).rate();
+        if (bucket == null) {
+            return;
+        }
+        long waitNanos = bucket.tryConsume();
+        if (waitNanos > 0) {
+            LOG.debugf("Agent %s is over its rate limit (call for %s at depth %d)",
+                    rootId, config.id, invocation.depth());
+            throw new AgentBusyException(rootId,
+                    "Agent '" + rootId + "' exceeded its request rate limit. Please retry later.",
+                    Duration.ofNanos(waitNanos));
+        }
+    }
+
+    private AgentLimits limitsFor(AgentConfig config) {
+        return limits.compute(config.id, (id, current) ->
+                current != null && current.version() == config.version ? current : create(config));
+    }
+
+    private AgentLimits create(AgentConfig config) {
+        int maxConcurrent = config.maxConcurrentRequests > 0 ? config.maxConcurrentRequests : defaultMaxConcurrent;
+        int ratePerMinute = config.rateLimitPerMinute > 0 ? config.rateLimitPerMinute : defaultRatePerMinute;
+        int burst = config.rateLimitBurst > 0 ? config.rateLimitBurst : defaultBurst;
+        TokenBucket bucket = ratePerMinute > 0
+                ? new TokenBucket(ratePerMinute, burst > 0 ? burst : ratePerMinute)
+                : null;
+        return new AgentLimits(config.version, new Semaphore(maxConcurrent, true), bucket);
+    }
+
+    void onAgentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AgentChangedEvent event) {
+        // Permits already handed out release into the semaphore they came from
+        limits.remove(event.agentId());
+    }
+
+    private record AgentLimits(long version, Semaphore concurrency, TokenBucket rate) {
+    }
+
+    /**
+     * An admitted execution; closing it frees the agent's slot.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private boolean released;
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                semaphore.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.acme.a2a.service;
+
+import java.time.Duration;
+
+/**
+ * Raised when an agent has no free execution slot within the admission wait
+ * time, or when the root agent of a request has used up its rate limit.
+ */
+public class AgentBusyException extends RateLimitedException {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final String agentId;
+
+    public AgentBusyException(String agentId) {
+        this(agentId, "Agent '" + agentId + "' is at its concurrency limit. Please retry later.", DEFAULT_RETRY_AFTER);
+    }
+
+    public AgentBusyException(String agentId, String message, Duration retryAfter) {
+        super(message, retryAfter);
+        this.agentId = agentId;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+}
@@ -0,0 +1,193 @@
+package org.acme.a2a.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.acme.a2a.model.AgentChangedEvent;
+import org.acme.a2a.model.AgentsProvisionedEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read model behind the agent registry listing.
+ *
+ * Pages are fetched with keyset pagination over the agent id and a SQL
+ * projection that only reads the prompt preview, never the full prompt.
+ * Rendered pages are cached per registry generation; the generation is bumped
+ * whenever an agent is provisioned, updated or deleted (locally or on another
+ * node), which also changes the page ETags.
+ */
+@ApplicationScoped
+public class AgentCatalog {
+
+    public static final int PREVIEW_LENGTH = 100;
+
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {
+    };
+
+    // Distinguishes ETags of different nodes, whose generation counters are independent
+    private static final String NODE_EPOCH = UUID.randomUUID().toString().substring(0, 8);
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "agent.registry.snapshot-cache.max-size", defaultValue = "256")
+    long maxCachedPages;
+
+    @ConfigProperty(name = "agent.registry.snapshot-cache.ttl", defaultValue = "30s")
+    Duration pageTtl;
+
+    private final AtomicLong generation = new AtomicLong();
+    private Cache<PageKey, Page> pages;
+
+    @PostConstruct
+    void init() {
+        pages = Caffeine.newBuilder()
+                .maximumSize(maxCachedPages)
+                .expireAfterWrite(pageTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, pages, "agent-registry-pages");
+    }
+
+    /**
+     * ETag of the page for this query at the current generation. Computing it
+     * needs no database access.
+     */
+    public String etag(PageQuery query) {
+        return NODE_EPOCH + "-" + generation.get() + "-" + Integer.toHexString(query.hashCode());
+    }
+
+    /**
+     * Returns one page of agents, served from the snapshot cache when possible.
+     */
+    @ActivateRequestContext
+    public Page page(PageQuery query) {
+        long currentGeneration = generation.get();
+        return pages.get(new PageKey(currentGeneration, query), key -> fetch(query));
+    }
+
+    /**
+     * Drops all cached pages and changes every ETag.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        pages.invalidateAll();
+    }
+
+    void onAgentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AgentChangedEvent event) {
+        invalidate();
+    }
+
+    void onAgentsProvisioned(@Observes(during = TransactionPhase.AFTER_SUCCESS) AgentsProvisionedEvent event) {
+        invalidate();
+    }
+
+    private Page fetch(PageQuery query) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, name, substring(systemPrompt from 1 for %d),
+                       CAST(enabledTools AS text), CAST(downstreamPeers AS text)
+                FROM agents
+                WHERE 1 = 1
+                """.formatted(PREVIEW_LENGTH));
+        List<Object> parameters = new ArrayList<>();
+        if (query.after() != null) {
+            sql.append(" AND id > ?").append(parameters.size() + 1);
+            parameters.add(query.after());
+        }
+        if (query.tool() != null) {
+            sql.append(" AND enabledTools @> CAST(?").append(parameters.size() + 1).append(" AS jsonb)");
+            parameters.add(jsonArrayOf(query.tool()));
+        }
+        if (query.peer() != null) {
+            sql.append(" AND downstreamPeers @> CAST(?").append(parameters.size() + 1).append(" AS jsonb)");
+            parameters.add(jsonArrayOf(query.peer()));
+        }
+        // Fetch one extra row to know whether another page follows
+        sql.append(" ORDER BY id LIMIT ").append(query.limit() + 1);
+
+        Query nativeQuery = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            nativeQuery.setParameter(i + 1, parameters.get(i));
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = nativeQuery.getResultList();
+        List<AgentSummary> agents = new ArrayList<>(Math.min(rows.size(), query.limit()));
+        for (int i = 0; i < rows.size() && i < query.limit(); i++) {
+            Object[] row = rows.get(i);
+            agents.add(new AgentSummary(
+                    (String) row[0],
+                    (String) row[1],
+                    (String) row[2],
+                    parseList(row[3]),
+                    parseList(row[4])));
+        }
+
+        String nextCursor = rows.size() > query.limit() ? agents.get(agents.size() - 1).id() : null;
+        return new Page(agents, nextCursor);
+    }
+
+    private String jsonArrayOf(String value) {
+        try {
+            return objectMapper.writeValueAsString(List.of(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid filter value: " + value, e);
+        }
+    }
+
+    private List<String> parseList(Object json) {
+        if (json == null) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json.toString(), STRING_LIST);
+        } catch (JsonProcessingException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Listing parameters. {@code after} is the keyset cursor (last id of the
+     * previous page); {@code tool} and {@code peer} are optional filters.
+     */
+    public record PageQuery(String after, int limit, String tool, String peer) {
+    }
+
+    /**
+     * Projected agent row; {@code promptPreview} holds at most
+     * {@value #PREVIEW_LENGTH} characters of the system prompt.
+     */
+    public record AgentSummary(String id, String name, String promptPreview,
+                               List<String> enabledTools, List<String> downstreamPeers) {
+    }
+
+    public record Page(List<AgentSummary> agents, String nextCursor) {
+    }
+
+    private record PageKey(long generation, PageQuery query) {
+    }
+}
@@ -0,0 +1,142 @@
+package org.acme.a2a.service;
+
+import io.opentelemetry.context.Context;
+import io.quarkus.virtual.threads.VirtualThreads;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.DelegationLoopException;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Execution front-end for agent requests.
+ *
+ * Requests are run on virtual threads so a slow LLM call (or a chain of
+ * nested delegations) no longer pins a request worker thread, and every
+ * execution passes {@link AdmissionController} first.
+ */
+@ApplicationScoped
+public class AgentExecutor {
+
+    @Inject
+    DynamicAgentService agentService;
+
+    @Inject
+    AdmissionController admission;
+
+    @Inject
+    RequestCoalescer coalescer;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @ConfigProperty(name = "agent.execution.virtual-threads", defaultValue = "true")
+    boolean useVirtualThreads;
+
+    // Time budget of a client request, shared by every hop of its delegation tree
+    @ConfigProperty(name = "agent.request.timeout", defaultValue = "120s")
+    Duration requestTimeout;
+
+    // Shortest budget a client may ask for with X-Agent-Deadline-Ms
+    @ConfigProperty(name = "agent.request.min-timeout", defaultValue = "1s")
+    Duration minRequestTimeout;
+
+    /**
+     * Time budget of a client request that asked for {@code budgetMillis},
+     * clamped between {@code agent.request.min-timeout} and
+     * {@code agent.request.timeout}.
+     */
+    public Duration clientBudget(Long budgetMillis) {
+        if (budgetMillis == null) {
+            return requestTimeout;
+        }
+        Duration requested = Duration.ofMillis(budgetMillis);
+        if (requested.compareTo(minRequestTimeout) < 0) {
+            return minRequestTimeout;
+        }
+        return requested.compareTo(requestTimeout) > 0 ? requestTimeout : requested;
+    }
+
+    /**
+     * Runs a request asynchronously, on a virtual thread unless the
+     * virtual-thread mode is disabled.
+     */
+    public Uni<String> submit(AgentConfig config, String userMessage, InvocationContext invocation) {
+        Uni<String> execution = Uni.createFrom().item(() -> execute(config, userMessage, invocation));
+        return useVirtualThreads ? execution.runSubscriptionOn(tracedVirtualThreads()) : execution;
+    }
+
+    /**
+     * Runs a request on the calling thread once admitted. Identical requests
+     * already in flight are joined instead (see {@link RequestCoalescer});
+     * only the request that runs takes an execution slot. A rejected or
+     * failed request is answered with an explanatory reply.
+     *
+     * @throws DelegationLoopException if the agent is already on the call chain
+     * @throws AgentBusyException if the root agent is over its rate limit or
+     *                            no execution slot frees up in time
+     * @throws RateLimitedException if the shared model capacity is exhausted
+     */
+    public String execute(AgentConfig config, String userMessage, InvocationContext invocation) {
+        try {
+            return executeOrFail(config, userMessage, invocation);
+        } catch (AgentRequestException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Like {@link #execute}, but a rejected or failed request throws instead
+     * of producing a reply, for callers that record the outcome (tasks).
+     *
+     * @throws AgentRequestException if the agent could not answer
+     */
+    public String executeOrFail(AgentConfig config, String userMessage, InvocationContext invocation) {
+        // Loops are rejected before they take a slot or any model capacity
+        InvocationContext bounded = invocation.enter(config.id).withDefaultDeadline(requestTimeout);
+        return coalescer.execute(config, userMessage, bounded, () -> {
+            try (AdmissionController.Permit permit = admission.admit(config, bounded)) {
+                return agentService.processRequest(config, userMessage, bounded);
+            }
+        });
+    }
+
+    /**
+     * Streams a request. The agent's execution slot is held until the stream
+     * completes, fails, or is cancelled by the client. Admission happens when
+     * the stream is subscribed.
+     */
+    public Multi<String> stream(AgentConfig config, String userMessage, InvocationContext invocation) {
+        Multi<String> stream = Multi.createFrom().deferred(() -> openStream(config, userMessage, invocation));
+        return useVirtualThreads ? stream.runSubscriptionOn(tracedVirtualThreads()) : stream;
+    }
+
+    /**
+     * Admits a streamed request on the calling thread, so a rejection is
+     * thrown before any event is sent, and returns the stream holding the slot.
+     *
+     * @throws DelegationLoopException if the agent is already on the call chain
+     * @throws AgentBusyException if the root agent is over its rate limit or
+     *                            no execution slot frees up in time
+     */
+    public Multi<String> openStream(AgentConfig config, String userMessage, InvocationContext invocation) {
+        InvocationContext bounded = invocation.enter(config.id).withDefaultDeadline(requestTimeout);
+        AdmissionController.Permit permit = admission.admit(config, bounded);
+        Multi<String> stream = Multi.createFrom()
+                .deferred(() -> agentService.streamRequest(config, userMessage, bounded))
+                .onTermination().invoke(permit::close);
+        return useVirtualThreads ? stream.runSubscriptionOn(tracedVirtualThreads()) : stream;
+    }
+
+    // Runs work in the caller's trace context (e.g. the incoming HTTP request's span)
+    private ExecutorService tracedVirtualThreads() {
+        return Context.current().wrap(virtualThreads);
+    }
+}
@@ -0,0 +1,25 @@
+package org.acme.a2a.service;
+
+import io.micrometer.core.instrument.config.MeterFilter;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Singleton;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Meter filters applied to the Micrometer registry.
+ */
+@Singleton
+public class AgentMeterFilters {
+
+    /**
+     * Stops registering {@code agent.*} meters for new agent IDs once this
+     * many distinct IDs have been seen, so large fleets cannot blow up the
+     * metrics backend.
+     */
+    @Produces
+    @Singleton
+    MeterFilter agentTagLimit(@ConfigProperty(name = "agent.metrics.max-agent-tags", defaultValue = "1000")
+                              int maxAgentTags) {
+        return MeterFilter.maximumAllowableTags("agent.", "agent", maxAgentTags, MeterFilter.deny());
+    }
+}
@@ -0,0 +1,18 @@
+package org.acme.a2a.service;
+
+/**
+ * Raised when an agent could not answer a request: it was rejected (empty,
+ * over the input budget, too deep) or failed while running. The message is
+ * meant for the client; synchronous endpoints reply with it, tasks store it
+ * as their error.
+ */
+public class AgentRequestException extends RuntimeException {
+
+    public AgentRequestException(String message) {
+        super(message);
+    }
+
+    public AgentRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
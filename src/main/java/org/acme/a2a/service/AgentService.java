@@ -1,27 +1,87 @@
 package org.acme.a2a.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.control.ActivateRequestContext;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
 import jakarta.transaction.Transactional;
 import jakarta.inject.Inject;
 import org.acme.a2a.entity.AgentEntity;
+import org.acme.a2a.model.AgentChangedEvent;
 import org.acme.a2a.model.AgentConfig;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import org.acme.a2a.model.AgentsProvisionedEvent;
+import org.acme.a2a.model.ProvisionResult;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
 
 /**
  * Persistence-backed registry service for agent definitions.
  *
- * It provisions new agents, hydrates runtime {@link AgentConfig} instances,
- * and caches hydrated configs to reduce repeated database lookups.
+ * It provisions, updates and deletes agents, hydrates runtime
+ * {@link AgentConfig} instances, and caches hydrated configs in a
+ * size-bounded cache. Concurrent misses for the same agent share a single
+ * database load, and every change evicts the cached entry once the
+ * transaction commits, on this node and (via {@link ClusterInvalidation}) on
+ * every other gateway node.
  */
 @ApplicationScoped
 public class AgentService {
 
+    private static final Logger LOG = Logger.getLogger(AgentService.class);
+
     @Inject
     ToolFactory toolFactory;
 
-    // In-memory cache for "hot" agents to avoid hitting DB on every request
-    private final Map<String, AgentConfig> configCache = new ConcurrentHashMap<>();
+    @Inject
+    ToolRegistry toolRegistry;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Event<AgentChangedEvent> agentChanged;
+
+    @Inject
+    Event<AgentsProvisionedEvent> agentsProvisioned;
+
+    @Inject
+    ClusterInvalidation clusterInvalidation;
+
+    @Inject
+    AgentTelemetry telemetry;
+
+    @ConfigProperty(name = "agent.config-cache.max-size", defaultValue = "10000")
+    long maxCacheSize;
+
+    @ConfigProperty(name = "agent.config-cache.ttl", defaultValue = "30m")
+    Duration cacheTtl;
+
+    // Cache for "hot" agents to avoid hitting DB on every request
+    private Cache<String, AgentConfig> configCache;
+
+    @PostConstruct
+    void initCache() {
+        configCache = Caffeine.newBuilder()
+                .maximumSize(maxCacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, configCache, "agent-configs");
+    }
 
     /**
      * Provisioning: Saves a new agent definition to the database.
@@ -31,54 +91,222 @@ public class AgentService {
         if (AgentEntity.findById(entity.id) != null) {
             throw new IllegalArgumentException("Agent ID '" + entity.id + "' is already taken.");
         }
+        validate(entity);
         entity.persist();
+        announceProvisioned(List.of(entity.id));
+    }
+
+    /**
+     * Bulk provisioning: saves one chunk of agent definitions in its own
+     * transaction. Existing IDs are looked up with a single query and inserts
+     * are sent as JDBC batches.
+     *
+     * @return one result per submitted entity, in submission order
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public List<ProvisionResult> provisionBatch(List<AgentEntity> entities) {
+        Set<String> ids = new HashSet<>();
+        for (AgentEntity entity : entities) {
+            if (entity != null && entity.id != null && !entity.id.isBlank()) {
+                ids.add(entity.id);
+            }
+        }
+        Set<String> taken = ids.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(AgentEntity.getEntityManager()
+                        .createQuery("select a.id from AgentEntity a where a.id in :ids", String.class)
+                        .setParameter("ids", ids)
+                        .getResultList());
+
+        List<ProvisionResult> results = new ArrayList<>(entities.size());
+        for (AgentEntity entity : entities) {
+            if (entity == null || entity.id == null || entity.id.isBlank()) {
+                results.add(new ProvisionResult(null, ProvisionResult.INVALID, "Agent ID is required."));
+                continue;
+            }
+            // 'taken' also catches duplicates within the same request
+            if (!taken.add(entity.id)) {
+                results.add(new ProvisionResult(entity.id, ProvisionResult.CONFLICT,
+                        "Agent ID '" + entity.id + "' is already taken."));
+                continue;
+            }
+            try {
+                validate(entity);
+            } catch (IllegalArgumentException e) {
+                results.add(new ProvisionResult(entity.id, ProvisionResult.INVALID, e.getMessage()));
+                continue;
+            }
+            entity.persist();
+            results.add(ProvisionResult.created(entity.id));
+        }
+
+        List<String> created = results.stream()
+                .filter(ProvisionResult::isCreated)
+                .map(ProvisionResult::id)
+                .toList();
+        if (!created.isEmpty()) {
+            announceProvisioned(created);
+        }
+        return results;
+    }
+
+    /**
+     * Replaces the definition of an existing agent. The version column is
+     * bumped on flush and the cached config is evicted after commit.
+     *
+     * @return {@code false} if the agent does not exist
+     */
+    @Transactional
+    public boolean update(String agentId, AgentEntity changes) {
+        AgentEntity entity = AgentEntity.findById(agentId);
+        if (entity == null) {
+            return false;
+        }
+
+        entity.name = changes.name;
+        entity.systemPrompt = changes.systemPrompt;
+        entity.enabledTools = changes.enabledTools != null ? changes.enabledTools : new ArrayList<>();
+        entity.downstreamPeers = changes.downstreamPeers != null ? changes.downstreamPeers : new ArrayList<>();
+        entity.routingRules = changes.routingRules != null ? changes.routingRules : new LinkedHashMap<>();
+        entity.responseCacheEnabled = changes.responseCacheEnabled;
+        entity.maxFanOut = changes.maxFanOut;
+        entity.fanOutAggregation = changes.fanOutAggregation;
+        entity.maxInputTokens = changes.maxInputTokens;
+        entity.rateLimitPerMinute = changes.rateLimitPerMinute;
+        entity.rateLimitBurst = changes.rateLimitBurst;
+        entity.maxConcurrentRequests = changes.maxConcurrentRequests;
+        entity.workflow = changes.workflow != null ? changes.workflow : new ArrayList<>();
+        validate(entity);
+
+        announceChange(agentId);
+        return true;
+    }
+
+    /**
+     * Deletes an agent definition and evicts it after commit.
+     *
+     * @return {@code false} if the agent does not exist
+     */
+    @Transactional
+    public boolean delete(String agentId) {
+        if (!AgentEntity.deleteById(agentId)) {
+            return false;
+        }
+        announceChange(agentId);
+        return true;
+    }
+
+    /**
+     * Notifies local observers after commit and other gateway nodes via the
+     * cluster channel.
+     */
+    private void announceChange(String agentId) {
+        agentChanged.fire(new AgentChangedEvent(agentId));
+        clusterInvalidation.publish(agentId);
+    }
+
+    /**
+     * Announces newly created agents to registry views on this node and, with
+     * one notification per transaction, on every other node.
+     */
+    private void announceProvisioned(List<String> agentIds) {
+        agentsProvisioned.fire(new AgentsProvisionedEvent(agentIds));
+        clusterInvalidation.publishProvisioned();
     }
 
     /**
      * Hydration: Loads agent config and prepares it for execution.
-     * This is called by the Gateway for every request.
+     * This is called by the Gateway for every request, and for in-process
+     * delegation from virtual threads that carry no request context.
      */
+    @ActivateRequestContext
     public AgentConfig loadConfig(String agentId) {
-        io.quarkus.logging.Log.info("Loading config for agent: " + agentId);
-        // 1. Check Cache
-        if (configCache.containsKey(agentId)) {
-            return configCache.get(agentId);
-        }
+        // Caffeine runs the loader once per key, on the calling thread;
+        // concurrent misses wait for it. A null result (unknown agent) is not cached.
+        long start = System.nanoTime();
+        boolean[] loaded = new boolean[1];
+        AgentConfig config = configCache.get(agentId, id -> {
+            loaded[0] = true;
+            return telemetry.traced("agent.config.load", id, span -> hydrate(id));
+        });
+        // Unknown IDs come from clients; keep them out of the agent tag
+        telemetry.configLoaded(config == null ? null : agentId,
+                config == null ? "not-found" : loaded[0] ? "miss" : "hit", start);
+        return config;
+    }
+
+    private AgentConfig hydrate(String agentId) {
+        LOG.debugf("Loading config for agent %s from the database", agentId);
 
-        // 2. Check Database
+        // 1. Check Database
         AgentEntity entity = AgentEntity.findById(agentId);
         if (entity == null) {
             return null; // Agent not found
         }
 
-        // 3. Transform Entity -> Runtime Config
+        // 2. Transform Entity -> Runtime Config
         AgentConfig config = new AgentConfig();
         config.id = entity.id;
+        config.version = entity.version;
         config.name = entity.name;
         config.systemPrompt = entity.systemPrompt;
         config.enabledTools = entity.enabledTools;
         config.downstreamPeers = entity.downstreamPeers;
+        config.routingRules = entity.routingRules;
+        config.responseCacheEnabled = entity.responseCacheEnabled;
+        config.maxFanOut = Math.max(1, entity.maxFanOut);
+        config.fanOutAggregation = entity.fanOutAggregation;
+        config.maxInputTokens = entity.maxInputTokens;
+        config.rateLimitPerMinute = entity.rateLimitPerMinute;
+        config.rateLimitBurst = entity.rateLimitBurst;
+        config.maxConcurrentRequests = entity.maxConcurrentRequests;
+        config.compiledRoutingRules = KeywordPeerRouter.compile(entity.routingRules, entity.downstreamPeers);
+        config.workflow = WorkflowExecutor.plan(entity.workflow, entity.downstreamPeers);
+        config.prompts = PromptCompiler.compile(config);
 
-        // 4. Initialize MCP tools based on entity configuration
+        // 3. Initialize MCP tools based on entity configuration
         config.tools = toolFactory.createToolsFor(entity.enabledTools, entity.downstreamPeers);
-
-        // 5. Cache and Return
-        configCache.put(agentId, config);
         return config;
     }
 
+    private void validate(AgentEntity entity) {
+        try {
+            toolRegistry.validate(entity.enabledTools);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid tools for agent '" + entity.id + "': " + e.getMessage());
+        }
+        try {
+            KeywordPeerRouter.compile(entity.routingRules, entity.downstreamPeers);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid routing rule for agent '" + entity.id + "': " + e.getMessage());
+        }
+        try {
+            WorkflowExecutor.plan(entity.workflow, entity.downstreamPeers);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid workflow for agent '" + entity.id + "': " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evicts the cached config once the change is committed, so a concurrent
+     * reload cannot re-cache the old row.
+     */
+    void onAgentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AgentChangedEvent event) {
+        invalidateCache(event.agentId());
+    }
+
     /**
      * Invalidates the cache for a specific agent.
      * Useful when an agent's configuration is updated.
      */
     public void invalidateCache(String agentId) {
-        configCache.remove(agentId);
+        configCache.invalidate(agentId);
     }
 
     /**
      * Clears the entire agent configuration cache.
      */
     public void clearCache() {
-        configCache.clear();
+        configCache.invalidateAll();
     }
 }
@@ -0,0 +1,428 @@
+package org.acme.a2a.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.a2a.spec.TaskState;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.opentelemetry.context.Context;
+import io.quarkus.virtual.threads.VirtualThreads;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.AgentTask;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Asynchronous execution of agent requests, following the A2A task
+ * lifecycle ({@code submitted → working → completed | failed | canceled}).
+ *
+ * <ul>
+ *   <li>Tasks are persisted in {@code agent_tasks} and queued for a fixed
+ *       pool of {@code agent.tasks.workers}. When the queue
+ *       ({@code agent.tasks.queue-capacity}) is full, new tasks are
+ *       {@code rejected} and the client gets a 429.</li>
+ *   <li>Each task gets its own deadline ({@code agent.tasks.timeout}),
+ *       independent of any client connection.</li>
+ *   <li>Results are read by polling, by long-polling on the node running the
+ *       task, or delivered to the task's webhook URL once it finishes.
+ *       Webhooks may only point to {@code agent.tasks.webhook.allowed-hosts},
+ *       never to loopback or private addresses, and are signed with
+ *       {@code agent.tasks.webhook.secret}.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class AgentTaskService {
+
+    private static final Logger LOG = Logger.getLogger(AgentTaskService.class);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(5);
+
+    public static final String SIGNATURE_HEADER = "X-Agent-Signature";
+    public static final String TIMESTAMP_HEADER = "X-Agent-Timestamp";
+
+    @Inject
+    AgentTaskStore store;
+
+    @Inject
+    AgentService agentService;
+
+    @Inject
+    AgentExecutor agentExecutor;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @ConfigProperty(name = "agent.tasks.workers", defaultValue = "16")
+    int workerCount;
+
+    @ConfigProperty(name = "agent.tasks.queue-capacity", defaultValue = "1000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "agent.tasks.timeout", defaultValue = "10m")
+    Duration taskTimeout;
+
+    @ConfigProperty(name = "agent.tasks.max-wait", defaultValue = "60s")
+    Duration maxWait;
+
+    @ConfigProperty(name = "agent.tasks.retention", defaultValue = "24h")
+    Duration retention;
+
+    @ConfigProperty(name = "agent.tasks.stale-after", defaultValue = "1h")
+    Duration staleAfter;
+
+    @ConfigProperty(name = "agent.tasks.webhook.timeout", defaultValue = "10s")
+    Duration webhookTimeout;
+
+    @ConfigProperty(name = "agent.tasks.webhook.max-attempts", defaultValue = "3")
+    int webhookMaxAttempts;
+
+    @ConfigProperty(name = "agent.tasks.webhook.allowed-hosts")
+    Optional<List<String>> webhookAllowedHosts;
+
+    @ConfigProperty(name = "agent.tasks.webhook.secret")
+    Optional<String> webhookSecret;
+
+    // Tasks queued or running on this node
+    private final Map<String, RunningTask> running = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService housekeeping;
+    private HttpClient webhookClient;
+
+    @PostConstruct
+    void init() {
+        // Virtual worker threads: the pool size bounds concurrency, not OS threads
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), Thread.ofVirtual().name("agent-task-", 0).factory());
+        registry.gauge("agent.tasks.queued", Tags.empty(), workers, pool -> pool.getQueue().size());
+        registry.gauge("agent.tasks.active", Tags.empty(), workers, ThreadPoolExecutor::getActiveCount);
+
+        // Redirects could lead a checked webhook to an internal address
+        webhookClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(webhookTimeout)
+                .executor(virtualThreads)
+                .build();
+
+        housekeeping = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "agent-task-housekeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long purgeEvery = Math.max(60_000, Math.min(retention.toMillis(), staleAfter.toMillis()) / 4);
+        housekeeping.scheduleWithFixedDelay(this::purge, purgeEvery, purgeEvery, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        housekeeping.shutdownNow();
+        workers.shutdownNow();
+        // Nothing will finish these; do not leave them "working" forever
+        for (String taskId : running.keySet()) {
+            try {
+                store.finish(taskId, TaskState.FAILED, null, "The gateway shut down before the task finished.");
+            } catch (RuntimeException e) {
+                LOG.warnf("Could not mark task %s as failed on shutdown: %s", taskId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Persists and queues a task.
+     *
+     * @param webhookUrl absolute http(s) URL notified once the task finishes,
+     *                   or {@code null}
+     * @return the submitted task; fails with {@link RateLimitedException} when
+     *         the queue is full and {@link IllegalArgumentException} for an
+     *         invalid or disallowed webhook URL
+     */
+    public Uni<AgentTask> submit(AgentConfig config, String message, String sessionId, String webhookUrl) {
+        return Uni.createFrom().item(() -> {
+            URI webhook = parseWebhook(webhookUrl);
+            if (webhook != null) {
+                checkWebhookAddress(webhook);
+            }
+            if (workers.getQueue().remainingCapacity() == 0) {
+                throw queueFull();
+            }
+
+            AgentTask task = store.create(config.id, message, sessionId, webhookUrl);
+            RunningTask entry = new RunningTask(new CompletableFuture<>());
+            running.put(task.id(), entry);
+            try {
+                entry.execution = workers.submit(Context.current().wrap(
+                        () -> run(task, message, sessionId, webhook)));
+            } catch (RejectedExecutionException e) {
+                running.remove(task.id());
+                store.finish(task.id(), TaskState.REJECTED, null, "The task queue is full.");
+                throw queueFull();
+            }
+            LOG.debugf("Queued task %s for agent %s", task.id(), config.id);
+            return task;
+        }).runSubscriptionOn(virtualThreads);
+    }
+
+    /**
+     * Reads a task. An unfinished task running on this node is waited for
+     * up to {@code wait} (capped at {@code agent.tasks.max-wait}).
+     *
+     * @return the task, or {@code null} if it does not exist for this agent
+     */
+    public Uni<AgentTask> get(String agentId, String taskId, Duration wait) {
+        return Uni.createFrom().item(() -> store.find(agentId, taskId))
+                .runSubscriptionOn(virtualThreads)
+                .chain(task -> {
+                    RunningTask entry = task == null || isFinal(task) ? null : running.get(taskId);
+                    if (entry == null || wait.isZero() || wait.isNegative()) {
+                        return Uni.createFrom().item(task);
+                    }
+                    Duration bounded = wait.compareTo(maxWait) > 0 ? maxWait : wait;
+                    return Uni.createFrom().completionStage(entry.done)
+                            .ifNoItem().after(bounded).recoverWithItem(task);
+                });
+    }
+
+    /**
+     * Cancels an unfinished task. A running execution is interrupted; its
+     * result, if it still arrives, is discarded.
+     *
+     * @return the canceled task, the unchanged task if it had already
+     *         finished, or {@code null} if it does not exist for this agent
+     */
+    public Uni<AgentTask> cancel(String agentId, String taskId) {
+        return Uni.createFrom().item(() -> {
+            AgentTask task = store.find(agentId, taskId);
+            if (task == null || isFinal(task)) {
+                return task;
+            }
+            AgentTask canceled = store.finish(taskId, TaskState.CANCELED, null, null);
+            if (canceled == null) {
+                // Finished in the meantime
+                return store.find(agentId, taskId);
+            }
+            RunningTask entry = running.remove(taskId);
+            if (entry != null) {
+                if (entry.execution != null) {
+                    entry.execution.cancel(true);
+                }
+                entry.done.complete(canceled);
+            }
+            return canceled;
+        }).runSubscriptionOn(virtualThreads);
+    }
+
+    public static boolean isFinal(AgentTask task) {
+        return !TaskState.SUBMITTED.asString().equals(task.state())
+                && !TaskState.WORKING.asString().equals(task.state());
+    }
+
+    private void run(AgentTask task, String message, String sessionId, URI webhook) {
+        AgentTask finished = null;
+        try {
+            if (!store.start(task.id())) {
+                return; // canceled while queued
+            }
+            AgentConfig config = agentService.loadConfig(task.agentId());
+            if (config == null) {
+                finished = store.finish(task.id(), TaskState.FAILED, null,
+                        "Agent '" + task.agentId() + "' no longer exists.");
+            } else {
+                InvocationContext invocation = InvocationContext.root(task.agentId(), sessionId)
+                        .withDefaultDeadline(taskTimeout);
+                // Rejections and failures must end the task as failed, not completed
+                String reply = agentExecutor.executeOrFail(config, message, invocation);
+                finished = store.finish(task.id(), TaskState.COMPLETED, reply, null);
+            }
+        } catch (RuntimeException e) {
+            LOG.warnf("Task %s for agent %s failed: %s", task.id(), task.agentId(), e.getMessage());
+            finished = store.finish(task.id(), TaskState.FAILED, null, String.valueOf(e.getMessage()));
+        } finally {
+            RunningTask entry = running.remove(task.id());
+            if (entry != null) {
+                entry.done.complete(finished != null ? finished : store.find(task.agentId(), task.id()));
+            }
+        }
+        if (finished != null && webhook != null) {
+            notifyWebhook(webhook, finished, 1);
+        }
+    }
+
+    private void notifyWebhook(URI webhook, AgentTask task, int attempt) {
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(task);
+        } catch (JsonProcessingException e) {
+            LOG.errorf(e, "Could not serialize task %s for its webhook", task.id());
+            return;
+        }
+        try {
+            // Checked again before every attempt: the host may resolve
+            // differently than at submission
+            checkWebhookAddress(webhook);
+        } catch (IllegalArgumentException e) {
+            LOG.warnf("Not delivering webhook for task %s: %s", task.id(), e.getMessage());
+            return;
+        }
+        String timestamp = Long.toString(System.currentTimeMillis() / 1000);
+        HttpRequest request = HttpRequest.newBuilder(webhook)
+                .timeout(webhookTimeout)
+                .header("Content-Type", "application/json")
+                .header(TIMESTAMP_HEADER, timestamp)
+                .header(SIGNATURE_HEADER, "sha256=" + sign(timestamp + "." + body))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    boolean delivered = failure == null && response.statusCode() / 100 == 2;
+                    if (delivered) {
+                        return;
+                    }
+                    String reason = failure != null ? failure.getMessage() : "HTTP " + response.statusCode();
+                    if (attempt >= webhookMaxAttempts) {
+                        LOG.warnf("Giving up on webhook for task %s after %d attempts: %s", task.id(), attempt, reason);
+                        return;
+                    }
+                    long backoffMillis = 1000L << (attempt - 1);
+                    LOG.debugf("Webhook for task %s failed (%s), retrying in %d ms", task.id(), reason, backoffMillis);
+                    CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS, virtualThreads)
+                            .execute(() -> notifyWebhook(webhook, task, attempt + 1));
+                });
+    }
+
+    private void purge() {
+        try {
+            // Tasks still queued or running here are not abandoned, however
+            // long they wait
+            store.touch(List.copyOf(running.keySet()));
+            int abandoned = store.failStale(System.currentTimeMillis() - staleAfter.toMillis());
+            if (abandoned > 0) {
+                LOG.warnf("Marked %d abandoned tasks as failed", abandoned);
+            }
+            long purged = store.purgeFinishedBefore(System.currentTimeMillis() - retention.toMillis());
+            if (purged > 0) {
+                LOG.debugf("Purged %d finished tasks", purged);
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Purging finished tasks failed", e);
+        }
+    }
+
+    private URI parseWebhook(String webhookUrl) {
+        if (webhookUrl == null || webhookUrl.isBlank()) {
+            return null;
+        }
+        if (webhookAllowedHosts.orElse(List.of()).isEmpty() || webhookSecret.filter(s -> !s.isBlank()).isEmpty()) {
+            throw new IllegalArgumentException("Webhooks are not enabled on this gateway.");
+        }
+        URI uri;
+        try {
+            uri = URI.create(webhookUrl);
+        } catch (IllegalArgumentException e) {
+            uri = null;
+        }
+        if (uri == null || uri.getHost() == null || uri.getUserInfo() != null
+                || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+            throw new IllegalArgumentException("webhookUrl must be an absolute http or https URL.");
+        }
+        String host = uri.getHost();
+        if (webhookAllowedHosts.get().stream().noneMatch(allowed -> allowed.strip().equalsIgnoreCase(host))) {
+            throw new IllegalArgumentException("webhookUrl host '" + host + "' is not allowed.");
+        }
+        return uri;
+    }
+
+    /**
+     * Rejects webhook hosts that resolve to an address inside the gateway's
+     * network, so an allowed name cannot be pointed at internal services.
+     */
+    private static void checkWebhookAddress(URI webhook) {
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(webhook.getHost());
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("webhookUrl host '" + webhook.getHost() + "' cannot be resolved.");
+        }
+        for (InetAddress address : addresses) {
+            if (isInternal(address)) {
+                throw new IllegalArgumentException("webhookUrl host '" + webhook.getHost() +
+                        "' resolves to a non-public address.");
+            }
+        }
+    }
+
+    static boolean isInternal(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isAnyLocalAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet6Address) {
+            // Unique local fc00::/7 (IPv4-mapped addresses resolve to Inet4Address)
+            return (bytes[0] & 0xfe) == 0xfc;
+        }
+        // Carrier-grade NAT 100.64.0.0/10
+        return (bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64;
+    }
+
+    private String sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(webhookSecret.orElseThrow().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private RateLimitedException queueFull() {
+        return new RateLimitedException("The task queue is full. Please retry later.", RETRY_AFTER);
+    }
+
+    private static final class RunningTask {
+        final CompletableFuture<AgentTask> done;
+        volatile Future<?> execution;
+
+        RunningTask(CompletableFuture<AgentTask> done) {
+            this.done = done;
+        }
+    }
+}
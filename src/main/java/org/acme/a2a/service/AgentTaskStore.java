@@ -0,0 +1,119 @@
+package org.acme.a2a.service;
+
+import io.a2a.spec.TaskState;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import org.acme.a2a.entity.AgentTaskEntity;
+import org.acme.a2a.model.AgentTask;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistence for asynchronous agent tasks ({@code agent_tasks}).
+ *
+ * State changes are conditional updates, so a task that was canceled while
+ * running is not overwritten when its worker finishes, and each task leaves
+ * its unfinished states exactly once.
+ */
+@ApplicationScoped
+public class AgentTaskStore {
+
+    private static final List<String> UNFINISHED =
+            List.of(TaskState.SUBMITTED.asString(), TaskState.WORKING.asString());
+
+    @Transactional
+    public AgentTask create(String agentId, String message, String sessionId, String webhookUrl) {
+        long now = System.currentTimeMillis();
+        AgentTaskEntity entity = new AgentTaskEntity();
+        entity.id = UUID.randomUUID().toString();
+        entity.agentId = agentId;
+        entity.state = TaskState.SUBMITTED.asString();
+        entity.message = message;
+        entity.sessionId = sessionId;
+        entity.webhookUrl = webhookUrl;
+        entity.createdAt = now;
+        entity.updatedAt = now;
+        entity.persist();
+        return toTask(entity);
+    }
+
+    /**
+     * @return the task, or {@code null} if it does not exist for this agent
+     */
+    @Transactional
+    public AgentTask find(String agentId, String taskId) {
+        AgentTaskEntity entity = AgentTaskEntity.findById(taskId);
+        return entity == null || !entity.agentId.equals(agentId) ? null : toTask(entity);
+    }
+
+    /**
+     * Moves a submitted task to {@code working}.
+     *
+     * @return {@code false} if the task is no longer waiting, e.g. canceled
+     */
+    @Transactional
+    public boolean start(String taskId) {
+        return AgentTaskEntity.update("state = ?1, updatedAt = ?2 where id = ?3 and state = ?4",
+                TaskState.WORKING.asString(), System.currentTimeMillis(), taskId,
+                TaskState.SUBMITTED.asString()) > 0;
+    }
+
+    /**
+     * Moves an unfinished task to a final state.
+     *
+     * @return the finished task, or {@code null} if it had already finished
+     */
+    @Transactional
+    public AgentTask finish(String taskId, TaskState state, String result, String error) {
+        int updated = AgentTaskEntity.update(
+                "state = ?1, result = ?2, error = ?3, updatedAt = ?4 where id = ?5 and state in ?6",
+                state.asString(), result, truncate(error), System.currentTimeMillis(), taskId, UNFINISHED);
+        if (updated == 0) {
+            return null;
+        }
+        AgentTaskEntity entity = AgentTaskEntity.findById(taskId);
+        return entity == null ? null : toTask(entity);
+    }
+
+    /**
+     * Deletes finished tasks last changed before {@code cutoffMillis}.
+     */
+    @Transactional
+    public long purgeFinishedBefore(long cutoffMillis) {
+        return AgentTaskEntity.delete("state not in ?1 and updatedAt < ?2", UNFINISHED, cutoffMillis);
+    }
+
+    /**
+     * Marks unfinished tasks as alive, so {@link #failStale} leaves them alone.
+     */
+    @Transactional
+    public int touch(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return 0;
+        }
+        return AgentTaskEntity.update("updatedAt = ?1 where id in ?2 and state in ?3",
+                System.currentTimeMillis(), taskIds, UNFINISHED);
+    }
+
+    /**
+     * Fails unfinished tasks not updated since {@code cutoffMillis}, e.g.
+     * left behind by a gateway node that crashed.
+     */
+    @Transactional
+    public int failStale(long cutoffMillis) {
+        return AgentTaskEntity.update("state = ?1, error = ?2, updatedAt = ?3 where state in ?4 and updatedAt < ?5",
+                TaskState.FAILED.asString(), "The task was abandoned by its gateway node.",
+                System.currentTimeMillis(), UNFINISHED, cutoffMillis);
+    }
+
+    private static String truncate(String error) {
+        return error == null || error.length() <= 4096 ? error : error.substring(0, 4096);
+    }
+
+    private static AgentTask toTask(AgentTaskEntity entity) {
+        return new AgentTask(entity.id, entity.agentId, entity.state, entity.result, entity.error,
+                entity.createdAt, entity.updatedAt);
+    }
+}
@@ -0,0 +1,159 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.InvocationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Metrics and trace spans for the request hot path.
+ *
+ * Every span is opened as a child of the current OpenTelemetry context, which
+ * the REST server and client instrumentation carry across HTTP hops, so one
+ * client request yields one trace through every delegating agent. Meters are
+ * tagged with the agent ID; {@link AgentMeterFilters} caps how many distinct
+ * agents are tracked.
+ *
+ * <ul>
+ *   <li>{@code agent.config.load} – config lookups ({@code cache}: hit, miss, not-found)</li>
+ *   <li>{@code agent.routing} – routing decisions ({@code source}, {@code outcome})</li>
+ *   <li>{@code agent.delegation.hop} – calls to peers ({@code transport}: local, http)</li>
+ *   <li>{@code agent.answer} – answering the request itself ({@code mode}: chat, tools)</li>
+ *   <li>{@code agent.llm.call} / {@code agent.llm.tokens} – upstream model calls per endpoint</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class AgentTelemetry {
+
+    public static final AttributeKey<String> AGENT_ID = AttributeKey.stringKey("agent.id");
+    public static final AttributeKey<String> PEER_ID = AttributeKey.stringKey("agent.peer.id");
+    public static final AttributeKey<Long> DEPTH = AttributeKey.longKey("agent.depth");
+    public static final AttributeKey<String> TRANSPORT = AttributeKey.stringKey("agent.delegation.transport");
+    public static final AttributeKey<String> ROUTE_SOURCE = AttributeKey.stringKey("agent.route.source");
+    public static final AttributeKey<String> ROUTE_TARGETS = AttributeKey.stringKey("agent.route.targets");
+    public static final AttributeKey<String> UPSTREAM = AttributeKey.stringKey("agent.llm.upstream");
+    private static final AttributeKey<String> OPERATION = AttributeKey.stringKey("gen_ai.operation.name");
+    private static final AttributeKey<Long> INPUT_TOKENS = AttributeKey.longKey("gen_ai.usage.input_tokens");
+    private static final AttributeKey<Long> OUTPUT_TOKENS = AttributeKey.longKey("gen_ai.usage.output_tokens");
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    Tracer tracer;
+
+    /**
+     * Runs {@code work} inside a new span tagged with the agent ID. The span
+     * is current while {@code work} runs and records any exception it throws.
+     */
+    public <T> T traced(String spanName, String agentId, Function<Span, T> work) {
+        Span span = tracer.spanBuilder(spanName).setAttribute(AGENT_ID, tagValue(agentId)).startSpan();
+        try (Scope scope = span.makeCurrent()) {
+            return work.apply(span);
+        } catch (RuntimeException | Error e) {
+            failed(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Starts a span for a model call that completes on another thread; the
+     * caller ends it through {@link #modelCallEnded}.
+     */
+    public Span startModelCall(String agentId, String upstream) {
+        return tracer.spanBuilder("chat " + upstream)
+                .setAttribute(AGENT_ID, tagValue(agentId))
+                .setAttribute(UPSTREAM, upstream)
+                .setAttribute(OPERATION, "chat")
+                .startSpan();
+    }
+
+    /**
+     * Ends a model call span and records its latency and token usage.
+     *
+     * @param response the reply, or {@code null} if the call failed
+     */
+    public void modelCallEnded(Span span, String agentId, String upstream, long startNanos,
+                               ChatResponse response, Throwable failure) {
+        String agent = tagValue(agentId);
+        TokenUsage usage = response == null ? null : response.tokenUsage();
+        if (usage != null) {
+            if (usage.inputTokenCount() != null) {
+                span.setAttribute(INPUT_TOKENS, usage.inputTokenCount().longValue());
+                registry.counter("agent.llm.tokens", "agent", agent, "upstream", upstream, "type", "input")
+                        .increment(usage.inputTokenCount());
+            }
+            if (usage.outputTokenCount() != null) {
+                span.setAttribute(OUTPUT_TOKENS, usage.outputTokenCount().longValue());
+                registry.counter("agent.llm.tokens", "agent", agent, "upstream", upstream, "type", "output")
+                        .increment(usage.outputTokenCount());
+            }
+        }
+        if (failure != null) {
+            failed(span, failure);
+        }
+        span.end();
+        record("agent.llm.call", startNanos,
+                "agent", agent, "upstream", upstream, "outcome", failure == null ? "success" : "error");
+    }
+
+    public void configLoaded(String agentId, String cacheResult, long startNanos) {
+        record("agent.config.load", startNanos, "agent", tagValue(agentId), "cache", cacheResult);
+    }
+
+    public void routed(String agentId, String source, String outcome, long startNanos) {
+        record("agent.routing", startNanos, "agent", tagValue(agentId), "source", source, "outcome", outcome);
+    }
+
+    public void delegated(String agentId, String peerId, String transport, String outcome, long startNanos) {
+        record("agent.delegation.hop", startNanos,
+                "agent", tagValue(agentId), "peer", tagValue(peerId), "transport", transport, "outcome", outcome);
+    }
+
+    public void answered(String agentId, String mode, boolean success, long startNanos) {
+        record("agent.answer", startNanos,
+                "agent", tagValue(agentId), "mode", mode, "outcome", success ? "success" : "error");
+    }
+
+    /**
+     * @return the agent a call is made on behalf of, for tagging
+     */
+    public static String agentOf(InvocationContext invocation) {
+        if (invocation == null) {
+            return null;
+        }
+        return invocation.callChain().isEmpty()
+                ? invocation.rootAgentId()
+                : invocation.callChain().get(invocation.callChain().size() - 1);
+    }
+
+    private void record(String name, long startNanos, String... tags) {
+        Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static void failed(Span span, Throwable failure) {
+        span.recordException(failure);
+        span.setStatus(StatusCode.ERROR, String.valueOf(failure.getMessage()));
+    }
+
+    private static String tagValue(String value) {
+        return value == null || value.isBlank() ? "none" : value;
+    }
+}
@@ -0,0 +1,30 @@
+package org.acme.a2a.service;
+
+/**
+ * SPI for tools that agents enable by name in {@code enabledTools}.
+ *
+ * Providers are discovered as CDI beans and through {@link java.util.ServiceLoader}
+ * ({@code META-INF/services/org.acme.a2a.service.AgentToolProvider}). The tool
+ * object must expose LangChain4j {@code @Tool} methods.
+ */
+public interface AgentToolProvider {
+
+    /**
+     * Name agents use in {@code enabledTools}.
+     */
+    String name();
+
+    /**
+     * Creates the tool object. Called lazily, the first time an agent using
+     * the tool is hydrated.
+     */
+    Object create();
+
+    /**
+     * Whether one instance may serve every agent. Stateless tools should keep
+     * the default; stateful ones get a fresh instance per hydrated agent.
+     */
+    default boolean shared() {
+        return true;
+    }
+}
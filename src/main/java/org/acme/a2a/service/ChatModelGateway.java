@@ -0,0 +1,356 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.quarkiverse.langchain4j.ModelName;
+import io.quarkus.virtual.threads.VirtualThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single entry point for upstream model calls.
+ *
+ * <ul>
+ *   <li>At most {@code agent.llm.max-concurrent} calls (streams included) are
+ *       in flight across all agents; callers queue in FIFO order for up to
+ *       {@code agent.llm.acquire-timeout} and are then rejected with a
+ *       {@link RateLimitedException}.</li>
+ *   <li>Each call is bounded by {@code agent.llm.call-timeout} and by the
+ *       time left on the request's deadline.</li>
+ *   <li>Every endpoint has its own circuit breaker. When the primary model
+ *       fails, times out or is open, the call fails over to the model named by
+ *       {@code agent.llm.secondary-model}, if configured.</li>
+ *   <li>With {@code agent.llm.hedging.enabled}, a call still running after the
+ *       endpoint's recent p95 latency is duplicated and the first reply wins.</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class ChatModelGateway {
+
+    private static final Logger LOG = Logger.getLogger(ChatModelGateway.class);
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    @Inject
+    ChatModel chatModel;
+
+    @Inject
+    StreamingChatModel streamingChatModel;
+
+    @Inject
+    @Any
+    Instance<ChatModel> namedChatModels;
+
+    @Inject
+    @Any
+    Instance<StreamingChatModel> namedStreamingModels;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @Inject
+    AgentTelemetry telemetry;
+
+    @ConfigProperty(name = "agent.llm.max-concurrent", defaultValue = "32")
+    int maxConcurrent;
+
+    @ConfigProperty(name = "agent.llm.acquire-timeout", defaultValue = "10s")
+    Duration acquireTimeout;
+
+    @ConfigProperty(name = "agent.llm.call-timeout", defaultValue = "60s")
+    Duration callTimeout;
+
+    @ConfigProperty(name = "agent.llm.secondary-model")
+    Optional<String> secondaryModel;
+
+    @ConfigProperty(name = "agent.llm.circuit-breaker.window", defaultValue = "20")
+    int breakerWindow;
+
+    @ConfigProperty(name = "agent.llm.circuit-breaker.failure-ratio", defaultValue = "0.5")
+    double breakerFailureRatio;
+
+    @ConfigProperty(name = "agent.llm.circuit-breaker.open-duration", defaultValue = "30s")
+    Duration breakerOpenDuration;
+
+    @ConfigProperty(name = "agent.llm.hedging.enabled", defaultValue = "false")
+    boolean hedgingEnabled;
+
+    @ConfigProperty(name = "agent.llm.hedging.min-delay", defaultValue = "500ms")
+    Duration hedgingMinDelay;
+
+    private Semaphore permits;
+    private List<Upstream> upstreams;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrent, true);
+
+        upstreams = new ArrayList<>(2);
+        upstreams.add(upstream("default", chatModel, streamingChatModel));
+        secondaryModel.ifPresent(name -> {
+            Instance<ChatModel> model = namedChatModels.select(ModelName.Literal.of(name));
+            Instance<StreamingChatModel> streaming = namedStreamingModels.select(ModelName.Literal.of(name));
+            if (!model.isResolvable()) {
+                LOG.warnf("Secondary model '%s' is not configured; failover is disabled", name);
+                return;
+            }
+            upstreams.add(upstream(name, model.get(), streaming.isResolvable() ? streaming.get() : null));
+        });
+    }
+
+    private Upstream upstream(String name, ChatModel model, StreamingChatModel streaming) {
+        return new Upstream(name, model, streaming,
+                new CircuitBreaker(breakerWindow, breakerFailureRatio, breakerOpenDuration),
+                new LatencyWindow(200));
+    }
+
+    public ChatResponse chat(InvocationContext invocation, ChatRequest request) {
+        acquire();
+        try {
+            return callWithFailover(invocation, request);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public ChatResponse chat(InvocationContext invocation, List<ChatMessage> messages) {
+        return chat(invocation, ChatRequest.builder().messages(messages).build());
+    }
+
+    public ChatResponse chat(InvocationContext invocation, ChatMessage... messages) {
+        return chat(invocation, List.of(messages));
+    }
+
+    /**
+     * Streams a reply from the first endpoint whose breaker admits it. The
+     * call's slot is held until the handler sees the complete response or an
+     * error. Streams are neither hedged nor failed over once started, and the
+     * deadline is only checked before the stream opens.
+     */
+    public void chat(InvocationContext invocation, List<ChatMessage> messages, StreamingChatResponseHandler handler) {
+        Duration timeout = timeoutFor(invocation);
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new DeadlineExceededException("The request deadline has passed.");
+        }
+
+        acquire();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        };
+        Upstream upstream = upstreams.stream()
+                .filter(candidate -> candidate.streamingModel() != null && candidate.breaker().tryAcquire())
+                .findFirst()
+                .orElse(null);
+        if (upstream == null) {
+            release.run();
+            throw new ModelUnavailableException("All model endpoints are unavailable.");
+        }
+        String agentId = AgentTelemetry.agentOf(invocation);
+        long start = System.nanoTime();
+        Span span = telemetry.startModelCall(agentId, upstream.name());
+        try (Scope scope = span.makeCurrent()) {
+            upstream.streamingModel().chat(messages, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(String partialResponse) {
+                    handler.onPartialResponse(partialResponse);
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completeResponse) {
+                    upstream.breaker().onSuccess();
+                    release.run();
+                    telemetry.modelCallEnded(span, agentId, upstream.name(), start, completeResponse, null);
+                    handler.onCompleteResponse(completeResponse);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    upstream.breaker().onFailure();
+                    release.run();
+                    telemetry.modelCallEnded(span, agentId, upstream.name(), start, null, error);
+                    handler.onError(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            upstream.breaker().onFailure();
+            release.run();
+            telemetry.modelCallEnded(span, agentId, upstream.name(), start, null, e);
+            throw e;
+        }
+    }
+
+    private ChatResponse callWithFailover(InvocationContext invocation, ChatRequest request) {
+        Exception lastFailure = null;
+        for (Upstream upstream : upstreams) {
+            Duration timeout = timeoutFor(invocation);
+            if (timeout.isNegative() || timeout.isZero()) {
+                throw lastFailure == null
+                        ? new DeadlineExceededException("The request deadline has passed.")
+                        : new ModelUnavailableException("Model call failed: " + lastFailure.getMessage(), lastFailure);
+            }
+            if (!upstream.breaker().tryAcquire()) {
+                LOG.debugf("Circuit for model endpoint '%s' is open, skipping it", upstream.name());
+                continue;
+            }
+            try {
+                ChatResponse response = call(upstream, request, timeout, AgentTelemetry.agentOf(invocation));
+                upstream.breaker().onSuccess();
+                return response;
+            } catch (DeadlineExceededException e) {
+                // The caller's budget ran out, not the endpoint: other callers
+                // must not be locked out because of a short client deadline
+                upstream.breaker().onIgnored();
+                throw e;
+            } catch (InterruptedException e) {
+                upstream.breaker().onIgnored();
+                Thread.currentThread().interrupt();
+                throw new ModelUnavailableException("Interrupted while waiting for the model.", e);
+            } catch (Exception e) {
+                upstream.breaker().onFailure();
+                LOG.warnf("Model endpoint '%s' failed: %s", upstream.name(), e.getMessage());
+                lastFailure = e;
+            }
+        }
+        throw lastFailure == null
+                ? new ModelUnavailableException("All model endpoints are unavailable.")
+                : new ModelUnavailableException("Model call failed: " + lastFailure.getMessage(), lastFailure);
+    }
+
+    /**
+     * Calls one endpoint within {@code timeout}, hedging with a second
+     * attempt once the endpoint's p95 latency has passed.
+     *
+     * @throws DeadlineExceededException if the request's deadline, shorter
+     *                                   than {@code agent.llm.call-timeout},
+     *                                   ran out first
+     */
+    private ChatResponse call(Upstream upstream, ChatRequest request, Duration timeout, String agentId)
+            throws Exception {
+        // Attempts run on other threads; carry the caller's trace context to them
+        ExecutorCompletionService<ChatResponse> race =
+                new ExecutorCompletionService<>(Context.current().wrap(virtualThreads));
+        List<Future<ChatResponse>> attempts = new ArrayList<>(2);
+        long start = System.nanoTime();
+        long deadline = start + timeout.toNanos();
+        long hedgeAt = hedgeTime(upstream, start);
+        boolean hedgePermit = false;
+
+        attempts.add(race.submit(() -> timed(upstream, request, agentId)));
+        int pending = 1;
+        Exception failure = null;
+        try {
+            while (pending > 0) {
+                long now = System.nanoTime();
+                if (now >= deadline) {
+                    if (timeout.compareTo(callTimeout) < 0) {
+                        throw new DeadlineExceededException("The request deadline passed before model endpoint '" +
+                                upstream.name() + "' answered.");
+                    }
+                    throw new ModelUnavailableException("Model endpoint '" + upstream.name() +
+                            "' did not answer within " + timeout.toMillis() + " ms.");
+                }
+                boolean mayHedge = attempts.size() == 1 && hedgeAt < deadline;
+                Future<ChatResponse> done = race.poll((mayHedge ? Math.min(hedgeAt, deadline) : deadline) - now,
+                        TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (mayHedge && System.nanoTime() >= hedgeAt) {
+                        // Hedge only with spare capacity; never queue for it
+                        if (permits.tryAcquire()) {
+                            hedgePermit = true;
+                            LOG.debugf("Hedging slow call to model endpoint '%s'", upstream.name());
+                            attempts.add(race.submit(() -> timed(upstream, request, agentId)));
+                            pending++;
+                        } else {
+                            hedgeAt = Long.MAX_VALUE;
+                        }
+                    }
+                    continue;
+                }
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+            throw failure;
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+            if (hedgePermit) {
+                permits.release();
+            }
+        }
+    }
+
+    private long hedgeTime(Upstream upstream, long start) {
+        if (!hedgingEnabled) {
+            return Long.MAX_VALUE;
+        }
+        Duration p95 = upstream.latencies().p95();
+        if (p95 == null) {
+            return Long.MAX_VALUE;
+        }
+        return start + Math.max(p95.toNanos(), hedgingMinDelay.toNanos());
+    }
+
+    private ChatResponse timed(Upstream upstream, ChatRequest request, String agentId) {
+        long start = System.nanoTime();
+        Span span = telemetry.startModelCall(agentId, upstream.name());
+        try (Scope scope = span.makeCurrent()) {
+            ChatResponse response = upstream.model().chat(request);
+            upstream.latencies().record(System.nanoTime() - start);
+            telemetry.modelCallEnded(span, agentId, upstream.name(), start, response, null);
+            return response;
+        } catch (RuntimeException e) {
+            telemetry.modelCallEnded(span, agentId, upstream.name(), start, null, e);
+            throw e;
+        }
+    }
+
+    private Duration timeoutFor(InvocationContext invocation) {
+        return invocation == null ? callTimeout : invocation.remaining(callTimeout);
+    }
+
+    private void acquire() {
+        try {
+            if (permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new RateLimitedException("The model is at capacity. Please retry later.", RETRY_AFTER);
+    }
+
+    private record Upstream(String name, ChatModel model, StreamingChatModel streamingModel,
+                            CircuitBreaker breaker, LatencyWindow latencies) {
+    }
+}
@@ -0,0 +1,116 @@
+package org.acme.a2a.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Count-based circuit breaker for one upstream endpoint.
+ *
+ * The breaker opens when at least {@code failureRatio} of the last
+ * {@code window} calls failed, rejects calls for {@code openDuration}, then
+ * lets a single trial call through; its outcome closes or re-opens it.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean[] outcomes;
+    private final double failureRatio;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int window, double failureRatio, Duration openDuration) {
+        this.outcomes = new boolean[Math.max(1, window)];
+        this.failureRatio = failureRatio;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * @return whether a call may go to the endpoint now; every permitted
+     *         call must report {@link #onSuccess()}, {@link #onFailure()} or
+     *         {@link #onIgnored()}
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            reset();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded == outcomes.length && failures >= failureRatio * outcomes.length) {
+            open();
+        }
+    }
+
+    /**
+     * Ends a permitted call without an outcome, e.g. when the caller gave up
+     * on its own (deadline, interrupt) before the endpoint could answer.
+     */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length && outcomes[next]) {
+            failures--;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+        recorded = Math.min(recorded + 1, outcomes.length);
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        trialInFlight = false;
+    }
+
+    private void reset() {
+        state = State.CLOSED;
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        trialInFlight = false;
+        Arrays.fill(outcomes, false);
+    }
+}
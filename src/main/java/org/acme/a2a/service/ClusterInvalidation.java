@@ -0,0 +1,169 @@
+package org.acme.a2a.service;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.acme.a2a.model.AgentChangedEvent;
+import org.acme.a2a.model.AgentsProvisionedEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Cross-node config invalidation over PostgreSQL LISTEN/NOTIFY.
+ *
+ * Agent changes are announced on the {@value #CHANNEL} channel inside the
+ * changing transaction, so PostgreSQL delivers them only on commit. Every
+ * gateway node keeps one dedicated listening connection and re-fires the
+ * notification as a local {@link AgentChangedEvent}, so cached configs are
+ * evicted cluster-wide within roughly one poll interval. Newly provisioned
+ * agents are announced on {@value #PROVISIONED_CHANNEL} and re-fired as
+ * {@link AgentsProvisionedEvent}. After a lost connection the local caches
+ * are cleared, since notifications may have been missed.
+ */
+@ApplicationScoped
+public class ClusterInvalidation {
+
+    private static final Logger LOG = Logger.getLogger(ClusterInvalidation.class);
+    static final String CHANNEL = "agent_changed";
+    static final String PROVISIONED_CHANNEL = "agents_provisioned";
+
+    @Inject
+    EntityManager entityManager;
+
+    @Inject
+    AgentService agentService;
+
+    @Inject
+    AgentCatalog agentCatalog;
+
+    @Inject
+    Event<AgentChangedEvent> agentChanged;
+
+    @Inject
+    Event<AgentsProvisionedEvent> agentsProvisioned;
+
+    @ConfigProperty(name = "agent.cluster.invalidation.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "agent.cluster.invalidation.poll-interval", defaultValue = "500ms")
+    Duration pollInterval;
+
+    @ConfigProperty(name = "agent.cluster.invalidation.reconnect-delay", defaultValue = "5s")
+    Duration reconnectDelay;
+
+    @ConfigProperty(name = "quarkus.datasource.jdbc.url")
+    String jdbcUrl;
+
+    @ConfigProperty(name = "quarkus.datasource.username")
+    String username;
+
+    @ConfigProperty(name = "quarkus.datasource.password")
+    String password;
+
+    private volatile boolean running;
+    private Thread listenerThread;
+
+    /**
+     * Announces a change to all nodes. Must be called inside the transaction
+     * that performs the change; the notification is sent on commit.
+     */
+    public void publish(String agentId) {
+        if (!enabled) {
+            return;
+        }
+        entityManager.createNativeQuery("SELECT pg_notify(?1, ?2)")
+                .setParameter(1, CHANNEL)
+                .setParameter(2, agentId)
+                .getSingleResult();
+    }
+
+    /**
+     * Announces that new agents exist. Must be called inside the provisioning
+     * transaction.
+     */
+    public void publishProvisioned() {
+        if (!enabled) {
+            return;
+        }
+        entityManager.createNativeQuery("SELECT pg_notify(?1, '')")
+                .setParameter(1, PROVISIONED_CHANNEL)
+                .getSingleResult();
+    }
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listenerThread = Thread.ofPlatform()
+                .name("agent-cluster-invalidation")
+                .daemon()
+                .start(this::listenLoop);
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, username, password)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                    statement.execute("LISTEN " + PROVISIONED_CHANNEL);
+                }
+                LOG.infof("Listening for agent changes on channel '%s'", CHANNEL);
+
+                // Anything that changed while we were not listening is unknown
+                agentService.clearCache();
+                agentCatalog.invalidate();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollInterval.toMillis());
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        if (PROVISIONED_CHANNEL.equals(notification.getName())) {
+                            agentsProvisioned.fire(new AgentsProvisionedEvent(List.of()));
+                            continue;
+                        }
+                        LOG.debugf("Agent '%s' changed on another node", notification.getParameter());
+                        agentChanged.fire(new AgentChangedEvent(notification.getParameter()));
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                LOG.warnf("Agent change listener disconnected (%s); reconnecting in %s", e.getMessage(), reconnectDelay);
+                sleepBeforeReconnect();
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.acme.a2a.service;
+
+import org.acme.a2a.model.ConversationTurn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mutable history of one session: a running summary of compacted turns plus
+ * the turns that are still kept verbatim. All access is synchronized; the
+ * same instance is shared by concurrent requests of the session.
+ */
+public class Conversation {
+
+    private String summary;
+    private final List<ConversationTurn> turns;
+    private boolean compacting;
+
+    public Conversation(String summary, List<ConversationTurn> turns) {
+        this.summary = summary;
+        this.turns = new ArrayList<>(turns == null ? List.of() : turns);
+    }
+
+    public synchronized String summary() {
+        return summary;
+    }
+
+    public synchronized List<ConversationTurn> turns() {
+        return List.copyOf(turns);
+    }
+
+    synchronized void append(ConversationTurn turn) {
+        turns.add(turn);
+    }
+
+    /**
+     * Claims the oldest turns beyond {@code keepRecent} for compaction.
+     *
+     * @return the claimed turns, or an empty list if there is nothing to
+     *         compact or a compaction is already running
+     */
+    synchronized List<ConversationTurn> beginCompaction(int keepRecent) {
+        if (compacting || turns.size() <= keepRecent) {
+            return List.of();
+        }
+        compacting = true;
+        return List.copyOf(turns.subList(0, turns.size() - keepRecent));
+    }
+
+    /**
+     * Replaces the claimed turns with {@code newSummary}. Turns appended while
+     * the summary was produced are kept.
+     */
+    synchronized void completeCompaction(List<ConversationTurn> compacted, String newSummary) {
+        turns.subList(0, compacted.size()).clear();
+        summary = newSummary;
+        compacting = false;
+    }
+
+    synchronized void abortCompaction() {
+        compacting = false;
+    }
+}
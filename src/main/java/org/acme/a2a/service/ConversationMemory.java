@@ -0,0 +1,271 @@
+package org.acme.a2a.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.virtual.threads.VirtualThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.ConversationTurn;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session-scoped conversation memory keyed by (agent ID, session ID).
+ *
+ * Active sessions live in a bounded in-memory cache. With
+ * {@code agent.memory.store=jdbc} they are also loaded from and written to
+ * PostgreSQL; changed sessions are flushed in batches by a background task
+ * rather than on the request path. History handed to the model is capped at
+ * {@code agent.memory.max-tokens}; once a session exceeds it, the oldest turns
+ * are summarized (or dropped) asynchronously, keeping the most recent ones
+ * verbatim.
+ */
+@ApplicationScoped
+public class ConversationMemory {
+
+    private static final Logger LOG = Logger.getLogger(ConversationMemory.class);
+
+    @Inject
+    ChatModelGateway modelGateway;
+
+    @Inject
+    JdbcConversationStore jdbcStore;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @ConfigProperty(name = "agent.memory.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "agent.memory.store", defaultValue = "memory")
+    String storeKind;
+
+    @ConfigProperty(name = "agent.memory.max-sessions", defaultValue = "10000")
+    long maxSessions;
+
+    @ConfigProperty(name = "agent.memory.session-ttl", defaultValue = "1h")
+    Duration sessionTtl;
+
+    @ConfigProperty(name = "agent.memory.max-tokens", defaultValue = "2000")
+    int maxTokens;
+
+    @ConfigProperty(name = "agent.memory.keep-recent-turns", defaultValue = "4")
+    int keepRecentTurns;
+
+    @ConfigProperty(name = "agent.memory.compaction", defaultValue = "summarize")
+    String compaction;
+
+    @ConfigProperty(name = "agent.memory.flush-interval", defaultValue = "2s")
+    Duration flushInterval;
+
+    @ConfigProperty(name = "agent.memory.flush-batch-size", defaultValue = "200")
+    int flushBatchSize;
+
+    private Cache<SessionKey, Conversation> sessions;
+    private ConversationStore store;
+    // Sessions changed since the last flush; held strongly so eviction cannot lose them
+    private final Map<SessionKey, Conversation> dirty = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void init() {
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(sessionTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, sessions, "agent-conversations");
+
+        if ("jdbc".equalsIgnoreCase(storeKind)) {
+            store = jdbcStore;
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "conversation-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush,
+                    flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return whether requests in {@code sessionId} carry history
+     */
+    public boolean tracks(String sessionId) {
+        return enabled && sessionId != null && !sessionId.isBlank();
+    }
+
+    /**
+     * Returns the session history as chat messages, oldest first. When the
+     * token budget is tight the newest turns are kept; the summary of
+     * compacted turns, if any, leads as a system message.
+     */
+    public List<ChatMessage> history(AgentConfig config, String sessionId) {
+        if (!tracks(sessionId)) {
+            return List.of();
+        }
+        Conversation conversation = conversation(new SessionKey(config.id, sessionId));
+        String summary = conversation.summary();
+        List<ConversationTurn> turns = conversation.turns();
+
+        int budget = maxTokens - (summary == null ? 0 : estimateTokens(summary));
+        Deque<ChatMessage> messages = new ArrayDeque<>();
+        for (int i = turns.size() - 1; i >= 0; i--) {
+            ConversationTurn turn = turns.get(i);
+            budget -= estimateTokens(turn.user()) + estimateTokens(turn.assistant());
+            if (budget < 0) {
+                break;
+            }
+            messages.addFirst(AiMessage.from(turn.assistant()));
+            messages.addFirst(UserMessage.from(turn.user()));
+        }
+        if (summary != null && !summary.isBlank()) {
+            messages.addFirst(SystemMessage.from("Summary of the earlier conversation:\n" + summary));
+        }
+        return new ArrayList<>(messages);
+    }
+
+    /**
+     * Appends one exchange to the session and compacts it in the background
+     * once it exceeds the token budget.
+     */
+    public void record(AgentConfig config, String sessionId, String userMessage, String reply) {
+        if (!tracks(sessionId) || reply == null) {
+            return;
+        }
+        SessionKey key = new SessionKey(config.id, sessionId);
+        Conversation conversation = conversation(key);
+        conversation.append(new ConversationTurn(userMessage, reply, System.currentTimeMillis()));
+        markDirty(key, conversation);
+
+        if (estimateTokens(conversation) > maxTokens) {
+            List<ConversationTurn> claimed = conversation.beginCompaction(keepRecentTurns);
+            if (!claimed.isEmpty()) {
+                virtualThreads.execute(() -> compact(key, conversation, claimed));
+            }
+        }
+    }
+
+    private Conversation conversation(SessionKey key) {
+        return sessions.get(key, k -> {
+            Conversation stored = store == null ? null : store.load(k);
+            return stored != null ? stored : new Conversation(null, List.of());
+        });
+    }
+
+    private void compact(SessionKey key, Conversation conversation, List<ConversationTurn> claimed) {
+        try {
+            String summary = "truncate".equalsIgnoreCase(compaction)
+                    ? conversation.summary()
+                    : summarize(conversation.summary(), claimed);
+            conversation.completeCompaction(claimed, summary);
+            markDirty(key, conversation);
+            LOG.debugf("Compacted %d turns of session %s", claimed.size(), key.id());
+        } catch (Exception e) {
+            conversation.abortCompaction();
+            LOG.warnf("Failed to compact session %s: %s", key.id(), e.getMessage());
+        }
+    }
+
+    private String summarize(String previousSummary, List<ConversationTurn> turns) {
+        StringBuilder transcript = new StringBuilder();
+        if (previousSummary != null && !previousSummary.isBlank()) {
+            transcript.append("Earlier summary:\n").append(previousSummary).append("\n\n");
+        }
+        for (ConversationTurn turn : turns) {
+            transcript.append("User: ").append(turn.user()).append('\n');
+            transcript.append("Assistant: ").append(turn.assistant()).append('\n');
+        }
+
+        // Background work: bounded by agent.llm.call-timeout only
+        AiMessage summary = modelGateway.chat(null,
+                SystemMessage.from("Summarize this conversation in a few sentences. Keep facts, names, decisions " +
+                        "and open questions the assistant will need later. Reply with the summary only."),
+                UserMessage.from(transcript.toString())).aiMessage();
+        return summary == null ? previousSummary : summary.text();
+    }
+
+    private void markDirty(SessionKey key, Conversation conversation) {
+        if (store != null) {
+            dirty.put(key, conversation);
+        }
+    }
+
+    /**
+     * Writes changed sessions to the store, in batches of
+     * {@code agent.memory.flush-batch-size}.
+     */
+    void flush() {
+        while (!dirty.isEmpty()) {
+            Map<SessionKey, Conversation> batch = new LinkedHashMap<>();
+            Iterator<Map.Entry<SessionKey, Conversation>> entries = dirty.entrySet().iterator();
+            while (entries.hasNext() && batch.size() < flushBatchSize) {
+                Map.Entry<SessionKey, Conversation> entry = entries.next();
+                batch.put(entry.getKey(), entry.getValue());
+                entries.remove();
+            }
+            try {
+                store.saveAll(batch);
+            } catch (Exception e) {
+                // Put them back unless a newer change is already queued
+                batch.forEach(dirty::putIfAbsent);
+                LOG.warnf("Failed to persist %d conversations: %s", batch.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
+
+    private int estimateTokens(Conversation conversation) {
+        int tokens = conversation.summary() == null ? 0 : estimateTokens(conversation.summary());
+        for (ConversationTurn turn : conversation.turns()) {
+            tokens += estimateTokens(turn.user()) + estimateTokens(turn.assistant());
+        }
+        return tokens;
+    }
+
+    private static int estimateTokens(String text) {
+        return TokenEstimator.estimate(text);
+    }
+
+    public record SessionKey(String agentId, String sessionId) {
+
+        String id() {
+            return agentId + "/" + sessionId;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package org.acme.a2a.service;
+
+import java.util.Map;
+
+/**
+ * Durable backing store for session histories kept by {@link ConversationMemory}.
+ */
+public interface ConversationStore {
+
+    /**
+     * @return the stored history, or {@code null} if the session is unknown
+     */
+    Conversation load(ConversationMemory.SessionKey key);
+
+    /**
+     * Writes several histories at once, replacing any stored version.
+     */
+    void saveAll(Map<ConversationMemory.SessionKey, Conversation> conversations);
+}
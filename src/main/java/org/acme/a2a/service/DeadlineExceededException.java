@@ -0,0 +1,13 @@
+package org.acme.a2a.service;
+
+/**
+ * Raised when a request's own deadline ran out, as opposed to a model
+ * endpoint failing or timing out at {@code agent.llm.call-timeout}. It says
+ * nothing about the health of the endpoint or the outcome for other callers.
+ */
+public class DeadlineExceededException extends ModelUnavailableException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -1,27 +1,38 @@
 package org.acme.a2a.service;
 
 import dev.langchain4j.data.message.AiMessage;
-import dev.langchain4j.data.message.SystemMessage;
-import dev.langchain4j.data.message.UserMessage;
-import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
 import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.DelegationLoopException;
+import org.acme.a2a.model.InvocationContext;
+import org.acme.a2a.model.RoutingDecision;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Core runtime engine that executes agent prompts and delegation decisions.
  *
- * It supports direct chat responses, routing to downstream peers, and a
- * bounded delegation depth to prevent orchestration loops.
+ * It supports direct chat responses, routing to one or (fan-out) several
+ * downstream peers, and a bounded delegation depth to prevent orchestration
+ * loops.
  */
 @ApplicationScoped
 public class DynamicAgentService {
@@ -29,9 +40,46 @@ public class DynamicAgentService {
     private static final Logger LOG = Logger.getLogger(DynamicAgentService.class);
     private static final Pattern TARGET_JSON_PATTERN =
             Pattern.compile("\"target\"\\s*:\\s*\"([^\"]+)\"", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TARGETS_JSON_PATTERN =
+            Pattern.compile("\"targets\"\\s*:\\s*\\[([^\\]]*)\\]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern QUOTED_PATTERN = Pattern.compile("\"([^\"]+)\"");
 
     @Inject
-    ChatModel chatModel;
+    ChatModelGateway modelGateway;
+
+    @Inject
+    RoutingCache routingCache;
+
+    @Inject
+    ResponseCache responseCache;
+
+    @Inject
+    FanOutDelegation fanOutDelegation;
+
+    @Inject
+    WorkflowExecutor workflowExecutor;
+
+    @Inject
+    ToolExecutionLoop toolExecutionLoop;
+
+    @Inject
+    ConversationMemory conversationMemory;
+
+    @Inject
+    PromptBudget promptBudget;
+
+    @Inject
+    RoutingBatcher routingBatcher;
+
+    @Inject
+    @Any
+    Instance<PeerRouter> peerRouterBeans;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    AgentTelemetry telemetry;
 
     @ConfigProperty(name = "quarkus.langchain4j.openai.api-key")
     String apiKey;
@@ -39,13 +87,152 @@ public class DynamicAgentService {
     @ConfigProperty(name = "agent.orchestration.max-depth", defaultValue = "3")
     int maxDelegationDepth;
 
-    public String processRequest(AgentConfig config, String userMessage) {
-        return processRequest(config, userMessage, 0);
+    private List<PeerRouter> peerRouters;
+
+    @PostConstruct
+    void initRouters() {
+        peerRouters = peerRouterBeans.stream()
+                .sorted(Comparator.comparingInt(PeerRouter::priority))
+                .toList();
     }
 
-    public String processRequest(AgentConfig config, String userMessage, int delegationDepth) {
+    /**
+     * Processes a request. With a session ID in the invocation context, the
+     * session history is sent along and the exchange is recorded; the
+     * response cache is bypassed because replies depend on that history.
+     *
+     * @throws AgentRequestException if the request is rejected or fails; its
+     *                               message is the reply for the client
+     */
+    public String processRequest(AgentConfig config, String userMessage, InvocationContext invocation) {
         LOG.debug("Processing request for agent: " + config.id);
 
+        String rejection = checkRequest(config, userMessage, invocation);
+        if (rejection != null) {
+            throw new AgentRequestException(rejection);
+        }
+
+        try {
+            String sessionId = invocation.sessionId();
+            List<ChatMessage> history = conversationMemory.history(config, sessionId);
+            String reply = respond(config, userMessage, invocation, history, !conversationMemory.tracks(sessionId));
+            conversationMemory.record(config, sessionId, userMessage, reply);
+            return reply;
+
+        } catch (RateLimitedException | DeadlineExceededException | DelegationLoopException e) {
+            // The caller's own limits; let it answer 429/504/508 rather than an error reply
+            throw e;
+        } catch (Exception e) {
+            LOG.error("Error processing request for agent " + config.id, e);
+            throw new AgentRequestException("Error processing request: " + e.getMessage() +
+                    ". Please check the server logs for more details.", e);
+        }
+    }
+
+    private String respond(AgentConfig config, String userMessage, InvocationContext invocation,
+                           List<ChatMessage> history, boolean cacheable) {
+        if (hasWorkflow(config)) {
+            return workflowExecutor.execute(config, userMessage, invocation);
+        }
+
+        if (hasDownstreamPeers(config)) {
+            return orchestrateWithDelegation(config, userMessage, invocation, history);
+        }
+
+        String cached = cacheable ? responseCache.get(config, userMessage) : null;
+        if (cached != null) {
+            LOG.debugf("Response cache hit for agent %s", config.id);
+            return cached;
+        }
+
+        String reply;
+        if (config.tools == null || config.tools.isEmpty()) {
+            // If agent has no tools, use simple chat
+            reply = simpleChat(config, userMessage, invocation, history);
+        } else {
+            // Agent has tools - use tool execution loop
+            LOG.debug("Agent has " + config.tools.size() + " tools available, executing with tool support");
+            reply = chatWithTools(config, userMessage, invocation, history);
+        }
+
+        if (cacheable) {
+            responseCache.put(config, userMessage, reply);
+        }
+        return reply;
+    }
+
+    /**
+     * Streaming variant of {@link #processRequest(AgentConfig, String, InvocationContext)}.
+     *
+     * Tokens are emitted as the model produces them. When an orchestrator
+     * delegates, the peer's stream is relayed as-is after the attribution
+     * line. Routing itself is not streamed, so this must be subscribed on a
+     * thread that may block. The exchange is recorded in the session once the
+     * stream completes.
+     */
+    public Multi<String> streamRequest(AgentConfig config, String userMessage, InvocationContext invocation) {
+        LOG.debug("Streaming request for agent: " + config.id);
+
+        String rejection = checkRequest(config, userMessage, invocation);
+        if (rejection != null) {
+            return Multi.createFrom().item(rejection);
+        }
+
+        String sessionId = invocation.sessionId();
+        StringBuilder streamed = new StringBuilder();
+        return Multi.createFrom().deferred(() -> {
+            List<ChatMessage> history = conversationMemory.history(config, sessionId);
+            return streamResponse(config, userMessage, invocation, history, !conversationMemory.tracks(sessionId));
+        }).onItem().invoke(streamed::append)
+          .onCompletion().invoke(() -> conversationMemory.record(config, sessionId, userMessage, streamed.toString()))
+          .onFailure(e -> !(e instanceof RateLimitedException)).recoverWithItem(e -> {
+            LOG.error("Error streaming request for agent " + config.id, e);
+            return "Error processing request: " + e.getMessage() +
+                   ". Please check the server logs for more details.";
+        });
+    }
+
+    private Multi<String> streamResponse(AgentConfig config, String userMessage, InvocationContext invocation,
+                                         List<ChatMessage> history, boolean cacheable) {
+        if (hasWorkflow(config)) {
+            // Only the final step's output is worth relaying; it arrives in one piece
+            return Multi.createFrom().item(workflowExecutor.execute(config, userMessage, invocation));
+        }
+
+        if (hasDownstreamPeers(config)) {
+            return streamWithDelegation(config, userMessage, invocation, history);
+        }
+
+        String cached = cacheable ? responseCache.get(config, userMessage) : null;
+        if (cached != null) {
+            return Multi.createFrom().item(cached);
+        }
+
+        if (config.tools == null || config.tools.isEmpty()) {
+            StringBuilder reply = new StringBuilder();
+            return streamChat(config, userMessage, invocation, history)
+                    .onItem().invoke(reply::append)
+                    .onCompletion().invoke(() -> {
+                        if (cacheable) {
+                            responseCache.put(config, userMessage, reply.toString());
+                        }
+                    });
+        }
+        // Tool-enabled agents answer in one piece
+        String reply = chatWithTools(config, userMessage, invocation, history);
+        if (cacheable) {
+            responseCache.put(config, userMessage, reply);
+        }
+        return Multi.createFrom().item(reply);
+    }
+
+    /**
+     * Validates a request before any model call.
+     *
+     * @return a user-facing rejection message, or {@code null} if the request
+     *         can proceed
+     */
+    private String checkRequest(AgentConfig config, String userMessage, InvocationContext invocation) {
         // Check if OpenAI is properly configured
         if (apiKey == null || "demo-key-not-set".equals(apiKey)) {
             LOG.warn("OpenAI API key is not configured. Please set OPENAI_API_KEY environment variable.");
@@ -61,101 +248,229 @@ public class DynamicAgentService {
             return "Please provide a non-empty 'message' field.";
         }
 
-        if (delegationDepth > maxDelegationDepth) {
-            LOG.warnf("Delegation depth limit reached for agent %s at depth %d", config.id, delegationDepth);
-            return "Delegation depth limit reached. Please refine your request.";
+        if (!promptBudget.fits(config, userMessage)) {
+            LOG.warnf("Request for agent %s exceeds its input budget of %d tokens", config.id, promptBudget.budgetFor(config));
+            return "Your message is too long for this agent (limit: about " + promptBudget.budgetFor(config) +
+                    " tokens including its instructions). Please shorten it.";
         }
 
-        try {
-            if (chatModel == null) {
-                LOG.error("ChatModel is null! This should not happen if API key is set.");
-                return "Error: AI model not initialized despite having API key configured.";
-            }
-
-            if (hasDownstreamPeers(config)) {
-                return orchestrateWithDelegation(config, userMessage, delegationDepth);
-            }
-
-            // If agent has no tools, use simple chat
-            if (config.tools == null || config.tools.isEmpty()) {
-                return simpleChat(config, userMessage);
-            }
+        if (invocation.depth() > maxDelegationDepth) {
+            LOG.warnf("Delegation depth limit reached for agent %s at depth %d", config.id, invocation.depth());
+            return "Delegation depth limit reached. Please refine your request.";
+        }
+        return null;
+    }
 
-            // Agent has tools - use tool execution loop
-            LOG.debug("Agent has " + config.tools.size() + " tools available, executing with tool support");
-            return chatWithTools(config, userMessage);
+    /**
+     * Simple chat without tools
+     */
+    private String simpleChat(AgentConfig config, String userMessage, InvocationContext invocation,
+                              List<ChatMessage> history) {
+        return answer(config, "chat", () -> {
+            ChatResponse response = modelGateway.chat(invocation, messagesFor(config, userMessage, history));
+            AiMessage aiMessage = response.aiMessage();
+            return aiMessage == null ? "" : aiMessage.text();
+        });
+    }
 
-        } catch (Exception e) {
-            LOG.error("Error processing request for agent " + config.id, e);
-            return "Error processing request: " + e.getMessage() + 
-                   ". Please check the server logs for more details.";
+    /**
+     * Traces and times the agent answering a request itself.
+     */
+    private String answer(AgentConfig config, String mode, Supplier<String> work) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            String reply = telemetry.traced("agent.answer", config.id, span -> work.get());
+            success = true;
+            return reply;
+        } finally {
+            telemetry.answered(config.id, mode, success, start);
         }
     }
 
     /**
-     * Simple chat without tools
+     * Simple chat without tools, streamed token by token
      */
-    private String simpleChat(AgentConfig config, String userMessage) {
-        SystemMessage systemMessage = new SystemMessage(config.systemPrompt);
-        UserMessage userMsg = new UserMessage(userMessage);
+    private Multi<String> streamChat(AgentConfig config, String userMessage, InvocationContext invocation,
+                                     List<ChatMessage> history) {
+        List<ChatMessage> messages = messagesFor(config, userMessage, history);
+
+        return Multi.createFrom().emitter(emitter ->
+                modelGateway.chat(invocation, messages, new StreamingChatResponseHandler() {
+                    @Override
+                    public void onPartialResponse(String partialResponse) {
+                        emitter.emit(partialResponse);
+                    }
+
+                    @Override
+                    public void onCompleteResponse(ChatResponse completeResponse) {
+                        emitter.complete();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        emitter.fail(error);
+                    }
+                }));
+    }
+
+    private List<ChatMessage> messagesFor(AgentConfig config, String userMessage, List<ChatMessage> history) {
+        return promptBudget.assemble(config, history, userMessage);
+    }
 
-        ChatResponse response = chatModel.chat(systemMessage, userMsg);
-        AiMessage aiMessage = response.aiMessage();
-        return aiMessage == null ? "" : aiMessage.text();
+    private boolean hasWorkflow(AgentConfig config) {
+        return config.workflow != null && !config.workflow.isEmpty();
     }
 
     private boolean hasDownstreamPeers(AgentConfig config) {
         return config.downstreamPeers != null && !config.downstreamPeers.isEmpty();
     }
 
-    private String orchestrateWithDelegation(AgentConfig config, String userMessage, int delegationDepth) {
-        String selectedPeer = selectTargetPeer(config, userMessage);
+    private String orchestrateWithDelegation(AgentConfig config, String userMessage, InvocationContext invocation,
+                                             List<ChatMessage> history) {
+        RoutingDecision decision = selectTargetPeers(config, userMessage, invocation);
 
         // SELF means no delegation needed.
-        if (selectedPeer == null) {
+        if (decision.isSelf()) {
             LOG.debugf("Orchestrator %s chose to answer directly", config.id);
-            return simpleChat(config, userMessage);
+            return simpleChat(config, userMessage, invocation, history);
         }
 
+        if (decision.targets().size() > 1) {
+            return fanOut(config, userMessage, decision.targets(), invocation);
+        }
+
+        String selectedPeer = decision.target();
+
         ToolFactory.PeerDelegationTool delegationTool = findDelegationTool(config.tools, selectedPeer);
         if (delegationTool == null) {
             LOG.warnf("No delegation tool configured for peer '%s' on orchestrator '%s'", selectedPeer, config.id);
             return "Unable to delegate to " + selectedPeer + " because delegation is not configured.";
         }
 
-        LOG.infof("Orchestrator %s delegating request to %s", config.id, selectedPeer);
-        String delegatedReply = delegationTool.callAgent(userMessage, delegationDepth + 1);
+        LOG.debugf("Orchestrator %s delegating request to %s", config.id, selectedPeer);
+        String delegatedReply = delegationTool.callAgent(userMessage, invocation.delegated());
 
         // Keep attribution explicit for demo transparency.
         return "Delegated to " + selectedPeer + ":\n" + delegatedReply;
     }
 
-    private String selectTargetPeer(AgentConfig config, String userMessage) {
-        String peers = String.join(", ", config.downstreamPeers);
-        String routingInstructions = """
-                You are a strict routing engine for a multi-agent orchestrator.
-                Pick exactly one target from [%s] or SELF.
-                Return JSON only, exactly this schema:
-                {"target":"<agent-id-or-SELF>","reason":"<short reason>"}
-                Rules:
-                - Use SELF for greetings, small talk, or unclear/ambiguous requests.
-                - Otherwise select the single best specialist agent.
-                - Never invent agent IDs.
-                """.formatted(peers);
-
-        ChatResponse routingResponse =
-                chatModel.chat(new SystemMessage(routingInstructions), new UserMessage(userMessage));
-        AiMessage routingMessage = routingResponse.aiMessage();
-        String raw = routingMessage == null ? "" : routingMessage.text();
-        String target = parseTarget(raw, config.downstreamPeers);
-
-        if (target == null) {
+    private Multi<String> streamWithDelegation(AgentConfig config, String userMessage, InvocationContext invocation,
+                                               List<ChatMessage> history) {
+        RoutingDecision decision = selectTargetPeers(config, userMessage, invocation);
+
+        if (decision.isSelf()) {
+            LOG.debugf("Orchestrator %s chose to answer directly", config.id);
+            return streamChat(config, userMessage, invocation, history);
+        }
+
+        if (decision.targets().size() > 1) {
+            // Aggregated replies only exist once every peer has answered
+            return Multi.createFrom().item(fanOut(config, userMessage, decision.targets(), invocation));
+        }
+
+        String selectedPeer = decision.target();
+
+        ToolFactory.PeerDelegationTool delegationTool = findDelegationTool(config.tools, selectedPeer);
+        if (delegationTool == null) {
+            LOG.warnf("No delegation tool configured for peer '%s' on orchestrator '%s'", selectedPeer, config.id);
+            return Multi.createFrom().item(
+                    "Unable to delegate to " + selectedPeer + " because delegation is not configured.");
+        }
+
+        LOG.debugf("Orchestrator %s streaming delegation to %s", config.id, selectedPeer);
+        return Multi.createBy().concatenating().streams(
+                Multi.createFrom().item("Delegated to " + selectedPeer + ":\n"),
+                delegationTool.streamAgent(userMessage, invocation.delegated()));
+    }
+
+    private String fanOut(AgentConfig config, String userMessage, List<String> targets, InvocationContext invocation) {
+        List<ToolFactory.PeerDelegationTool> peers = new ArrayList<>(targets.size());
+        for (String target : targets) {
+            ToolFactory.PeerDelegationTool delegationTool = findDelegationTool(config.tools, target);
+            if (delegationTool == null) {
+                LOG.warnf("No delegation tool configured for peer '%s' on orchestrator '%s'", target, config.id);
+            } else {
+                peers.add(delegationTool);
+            }
+        }
+        if (peers.isEmpty()) {
+            return "Unable to delegate to " + String.join(", ", targets) + " because delegation is not configured.";
+        }
+
+        LOG.debugf("Orchestrator %s fanning out request to %s", config.id, targets);
+        return fanOutDelegation.delegate(config, userMessage, peers, invocation.delegated());
+    }
+
+    private RoutingDecision selectTargetPeers(AgentConfig config, String userMessage, InvocationContext invocation) {
+        long start = System.nanoTime();
+        RoutingDecision decision = telemetry.traced("agent.route", config.id, span -> {
+            RoutingDecision routed = decideRoute(config, userMessage, invocation);
+            span.setAttribute(AgentTelemetry.ROUTE_SOURCE, routed.source());
+            span.setAttribute(AgentTelemetry.ROUTE_TARGETS, routed.isSelf() ? "SELF" : String.join(",", routed.targets()));
+            return routed;
+        });
+        String outcome = decision.isSelf() ? "self" : decision.targets().size() > 1 ? "fan-out" : "peer";
+        LOG.debugf("Routing decision for %s: %s (source=%s, confidence=%.2f)",
+                config.id, decision.isSelf() ? "SELF" : decision.targets(), decision.source(), decision.confidence());
+        registry.counter("agent.routing.decisions", "source", decision.source(), "outcome", outcome).increment();
+        telemetry.routed(config.id, decision.source(), outcome, start);
+        return decision;
+    }
+
+    /**
+     * Routing pipeline: fast-path routers, then the decision cache, then the
+     * LLM router as the fallback.
+     */
+    private RoutingDecision decideRoute(AgentConfig config, String userMessage, InvocationContext invocation) {
+        for (PeerRouter router : peerRouters) {
+            RoutingDecision decision = router.route(config, userMessage);
+            if (decision != null) {
+                return decision;
+            }
+        }
+
+        List<String> cached = routingCache.get(config, userMessage);
+        if (cached != null) {
+            return new RoutingDecision(cached, "cache", 1.0);
+        }
+
+        List<String> targets = routeWithModel(config, userMessage, invocation);
+        routingCache.put(config, userMessage, targets);
+        return new RoutingDecision(targets, "llm", 1.0);
+    }
+
+    private List<String> routeWithModel(AgentConfig config, String userMessage, InvocationContext invocation) {
+        String raw = routingBatcher.route(config, userMessage, invocation);
+        List<String> targets = parseTargets(raw, config.downstreamPeers, config.maxFanOut);
+
+        if (targets.isEmpty()) {
             LOG.debugf("Routing decision: SELF (raw response: %s)", raw);
         } else {
-            LOG.debugf("Routing decision: %s (raw response: %s)", target, raw);
+            LOG.debugf("Routing decision: %s (raw response: %s)", targets, raw);
         }
 
-        return target;
+        return targets;
+    }
+
+    private List<String> parseTargets(String raw, List<String> peers, int maxTargets) {
+        if (raw != null && maxTargets > 1) {
+            Matcher listMatcher = TARGETS_JSON_PATTERN.matcher(raw);
+            if (listMatcher.find()) {
+                List<String> targets = new ArrayList<>();
+                Matcher quoted = QUOTED_PATTERN.matcher(listMatcher.group(1));
+                while (quoted.find() && targets.size() < maxTargets) {
+                    String candidate = normalizeTarget(quoted.group(1), peers);
+                    if (candidate != null && !targets.contains(candidate)) {
+                        targets.add(candidate);
+                    }
+                }
+                return targets;
+            }
+        }
+
+        String target = parseTarget(raw, peers);
+        return target == null ? List.of() : List.of(target);
     }
 
     private String parseTarget(String raw, List<String> peers) {
@@ -224,33 +539,11 @@ public class DynamicAgentService {
     }
 
     /**
-     * Chat with tool execution loop
-     * For now, we'll use a simplified approach - just mention tools in system prompt
-     * Full tool execution requires AiServices API which needs different setup
+     * Chat with tool execution loop: the model's tool calls are executed and
+     * fed back until it answers (see {@link ToolExecutionLoop}).
      */
-    private String chatWithTools(AgentConfig config, String userMessage) {
-        // Build a system message that mentions available tools
-        StringBuilder enhancedPrompt = new StringBuilder(config.systemPrompt);
-        enhancedPrompt.append("\n\nYou have access to the following tools:\n");
-        
-        for (Object tool : config.tools) {
-            if (tool instanceof ToolFactory.PeerDelegationTool) {
-                enhancedPrompt.append("- callAgent(peerId, query): Delegate to specialist agents: ");
-                enhancedPrompt.append(String.join(", ", config.downstreamPeers));
-                enhancedPrompt.append("\n");
-            }
-        }
-        
-        enhancedPrompt.append("\nFor now, please indicate which agent you would delegate to and what you would ask them.");
-        
-        SystemMessage systemMessage = new SystemMessage(enhancedPrompt.toString());
-        UserMessage userMsg = new UserMessage(userMessage);
-
-        ChatResponse response = chatModel.chat(systemMessage, userMsg);
-        AiMessage aiMessage = response.aiMessage();
-
-        // TODO: Parse response for delegation intent and actually call the tool
-        // For now, just return the LLM's response
-        return aiMessage == null ? "" : aiMessage.text();
+    private String chatWithTools(AgentConfig config, String userMessage, InvocationContext invocation,
+                                 List<ChatMessage> history) {
+        return answer(config, "tools", () -> toolExecutionLoop.run(config, userMessage, invocation, history));
     }
 }
@@ -0,0 +1,206 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.opentelemetry.context.Context;
+import io.quarkus.virtual.threads.VirtualThreads;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends one request to several peers concurrently and merges their replies.
+ *
+ * Every peer gets the same time budget; peers that miss it are cancelled and
+ * reported, while the replies that did arrive are still aggregated. Overall
+ * latency is that of the slowest peer (capped by the timeout), not the sum.
+ */
+@ApplicationScoped
+public class FanOutDelegation {
+
+    private static final Logger LOG = Logger.getLogger(FanOutDelegation.class);
+
+    static final String CONCAT = "concat";
+    static final String VOTE = "vote";
+    static final String SYNTHESIZE = "synthesize";
+
+    // Free-text answers almost never match verbatim, so vote peers are asked for a short verdict line
+    private static final String VERDICT_INSTRUCTION = """
+
+
+            End your answer with one final line of the form "VERDICT: <your answer in at most five words>".""";
+    private static final Pattern VERDICT = Pattern.compile("(?im)^\\W*verdict\\W*:\\s*(.+?)\\s*$");
+
+    @Inject
+    ChatModelGateway modelGateway;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @ConfigProperty(name = "agent.orchestration.fan-out.peer-timeout", defaultValue = "20s")
+    Duration peerTimeout;
+
+    public String delegate(AgentConfig config, String userMessage,
+                           List<ToolFactory.PeerDelegationTool> peers, InvocationContext invocation) {
+        String aggregation = aggregationOf(config);
+        String peerMessage = VOTE.equals(aggregation) ? userMessage + VERDICT_INSTRUCTION : userMessage;
+        List<Callable<String>> calls = new ArrayList<>(peers.size());
+        for (ToolFactory.PeerDelegationTool peer : peers) {
+            calls.add(() -> peer.callAgent(peerMessage, invocation));
+        }
+
+        // Cancels whatever has not finished when the budget runs out
+        Duration budget = invocation.remaining(peerTimeout);
+        List<Future<String>> futures;
+        try {
+            // Peer calls run on other threads; keep them in this request's trace
+            futures = Context.current().wrap(virtualThreads).invokeAll(calls, budget.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Delegation was interrupted.";
+        }
+
+        Map<String, String> replies = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        RateLimitedException rateLimited = null;
+        for (int i = 0; i < peers.size(); i++) {
+            String peerId = peers.get(i).getPeerId();
+            try {
+                replies.put(peerId, futures.get(i).get());
+            } catch (CancellationException e) {
+                LOG.warnf("Peer '%s' did not answer orchestrator '%s' within %d ms", peerId, config.id,
+                        budget.toMillis());
+                missing.add(peerId);
+            } catch (ExecutionException e) {
+                LOG.warnf("Peer '%s' failed for orchestrator '%s': %s", peerId, config.id, e.getCause());
+                if (e.getCause() instanceof RateLimitedException limited) {
+                    rateLimited = limited;
+                }
+                missing.add(peerId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                missing.add(peerId);
+            }
+        }
+
+        if (replies.isEmpty()) {
+            if (rateLimited != null) {
+                // Same 429 as a single-peer delegation would give
+                throw rateLimited;
+            }
+            return "None of " + String.join(", ", missing) + " answered in time. Please try again.";
+        }
+
+        String merged = switch (aggregation) {
+            case VOTE -> vote(replies);
+            case SYNTHESIZE -> synthesize(config, userMessage, replies, invocation);
+            default -> concat(replies);
+        };
+        return missing.isEmpty()
+                ? merged
+                : merged + "\n\n(No answer in time from: " + String.join(", ", missing) + ")";
+    }
+
+    private String aggregationOf(AgentConfig config) {
+        return config.fanOutAggregation == null
+                ? CONCAT
+                : config.fanOutAggregation.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private String concat(Map<String, String> replies) {
+        StringBuilder merged = new StringBuilder();
+        for (Map.Entry<String, String> reply : replies.entrySet()) {
+            if (!merged.isEmpty()) {
+                merged.append("\n\n");
+            }
+            merged.append("Delegated to ").append(reply.getKey()).append(":\n").append(reply.getValue());
+        }
+        return merged.toString();
+    }
+
+    /**
+     * Majority vote over the peers' verdict lines; ties go to the earliest
+     * peer. Replies without a verdict abstain, and without any verdict the
+     * replies are concatenated.
+     */
+    private String vote(Map<String, String> replies) {
+        Map<String, List<String>> votes = new LinkedHashMap<>();
+        Map<String, String> representative = new LinkedHashMap<>();
+        for (Map.Entry<String, String> reply : replies.entrySet()) {
+            String verdict = verdictOf(reply.getValue());
+            if (verdict == null) {
+                continue;
+            }
+            String key = verdict.replaceAll("[\\p{Punct}\\s]+", " ").trim().toLowerCase(Locale.ROOT);
+            votes.computeIfAbsent(key, k -> new ArrayList<>()).add(reply.getKey());
+            representative.putIfAbsent(key, reply.getValue());
+        }
+        if (votes.isEmpty()) {
+            return concat(replies);
+        }
+
+        String winner = null;
+        for (Map.Entry<String, List<String>> entry : votes.entrySet()) {
+            if (winner == null || entry.getValue().size() > votes.get(winner).size()) {
+                winner = entry.getKey();
+            }
+        }
+        List<String> voters = votes.get(winner);
+        return "Delegated to " + String.join(", ", voters) + " (" + voters.size() + "/" + replies.size() +
+                " agree):\n" + representative.get(winner);
+    }
+
+    /**
+     * @return the text of the last verdict line of {@code reply}, or {@code null}
+     */
+    static String verdictOf(String reply) {
+        if (reply == null) {
+            return null;
+        }
+        String verdict = null;
+        Matcher matcher = VERDICT.matcher(reply);
+        while (matcher.find()) {
+            verdict = matcher.group(1);
+        }
+        return verdict == null || verdict.isBlank() ? null : verdict;
+    }
+
+    private String synthesize(AgentConfig config, String userMessage, Map<String, String> replies,
+                              InvocationContext invocation) {
+        StringBuilder answers = new StringBuilder("Question:\n").append(userMessage).append("\n");
+        for (Map.Entry<String, String> reply : replies.entrySet()) {
+            answers.append("\nAnswer from ").append(reply.getKey()).append(":\n").append(reply.getValue()).append("\n");
+        }
+
+        try {
+            ChatResponse response = modelGateway.chat(invocation, config.prompts.synthesis(),
+                    new UserMessage(answers.toString()));
+            AiMessage aiMessage = response.aiMessage();
+            String synthesized = aiMessage == null ? "" : aiMessage.text();
+            return "Delegated to " + String.join(", ", replies.keySet()) + ":\n" + synthesized;
+        } catch (RuntimeException e) {
+            LOG.warnf("Synthesis failed for orchestrator '%s', returning raw replies: %s", config.id, e.getMessage());
+            return concat(replies);
+        }
+    }
+}
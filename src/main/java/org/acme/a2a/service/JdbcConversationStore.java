@@ -0,0 +1,68 @@
+package org.acme.a2a.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.acme.a2a.entity.ConversationEntity;
+import org.hibernate.Session;
+
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.Map;
+
+/**
+ * PostgreSQL {@link ConversationStore}: one row per session in
+ * {@code agent_conversations}, written with a single batched upsert per flush.
+ */
+@ApplicationScoped
+public class JdbcConversationStore implements ConversationStore {
+
+    private static final String UPSERT = """
+            INSERT INTO agent_conversations (id, agentId, sessionId, summary, turns, updatedAt)
+            VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?)
+            ON CONFLICT (id) DO UPDATE
+               SET summary = EXCLUDED.summary, turns = EXCLUDED.turns, updatedAt = EXCLUDED.updatedAt
+            """;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Override
+    @Transactional
+    public Conversation load(ConversationMemory.SessionKey key) {
+        ConversationEntity entity = ConversationEntity.findById(key.id());
+        return entity == null ? null : new Conversation(entity.summary, entity.turns);
+    }
+
+    @Override
+    @Transactional
+    public void saveAll(Map<ConversationMemory.SessionKey, Conversation> conversations) {
+        long now = System.currentTimeMillis();
+        ConversationEntity.getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT)) {
+                for (Map.Entry<ConversationMemory.SessionKey, Conversation> entry : conversations.entrySet()) {
+                    ConversationMemory.SessionKey key = entry.getKey();
+                    Conversation conversation = entry.getValue();
+                    statement.setString(1, key.id());
+                    statement.setString(2, key.agentId());
+                    statement.setString(3, key.sessionId());
+                    statement.setString(4, conversation.summary());
+                    statement.setString(5, toJson(conversation));
+                    statement.setLong(6, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    private String toJson(Conversation conversation) {
+        try {
+            return objectMapper.writeValueAsString(conversation.turns());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
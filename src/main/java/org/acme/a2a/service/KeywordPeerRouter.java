@@ -0,0 +1,95 @@
+package org.acme.a2a.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.RoutingDecision;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Routes by per-agent keyword and regex rules from {@code routingRules}.
+ *
+ * Each rule maps a peer id to patterns. Plain entries match as
+ * case-insensitive whole words; entries prefixed with {@code re:} are regular
+ * expressions. A decision is only made when exactly one peer matches, or, for
+ * fan-out orchestrators, when no more peers match than {@code maxFanOut}.
+ */
+@ApplicationScoped
+public class KeywordPeerRouter implements PeerRouter {
+
+    static final String REGEX_PREFIX = "re:";
+
+    @Override
+    public RoutingDecision route(AgentConfig config, String userMessage) {
+        if (config.compiledRoutingRules == null || config.compiledRoutingRules.isEmpty()) {
+            return null;
+        }
+
+        List<String> matches = new ArrayList<>();
+        for (Map.Entry<String, List<Pattern>> rule : config.compiledRoutingRules.entrySet()) {
+            if (matchesAny(rule.getValue(), userMessage)) {
+                matches.add(rule.getKey());
+            }
+        }
+
+        if (matches.isEmpty() || matches.size() > Math.max(1, config.maxFanOut)) {
+            // No match, or more matches than the agent may fan out to: leave it to a smarter stage
+            return null;
+        }
+        return new RoutingDecision(matches, "rules", 1.0);
+    }
+
+    @Override
+    public int priority() {
+        return 10;
+    }
+
+    /**
+     * Compiles raw routing rules once at hydration time. Rules for peers that
+     * are not in {@code peers} are dropped.
+     */
+    public static Map<String, List<Pattern>> compile(Map<String, List<String>> rules, List<String> peers) {
+        Map<String, List<Pattern>> compiled = new LinkedHashMap<>();
+        if (rules == null || peers == null) {
+            return compiled;
+        }
+
+        for (Map.Entry<String, List<String>> rule : rules.entrySet()) {
+            String peer = peers.stream()
+                    .filter(p -> p.equalsIgnoreCase(rule.getKey()))
+                    .findFirst()
+                    .orElse(null);
+            if (peer == null || rule.getValue() == null) {
+                continue;
+            }
+
+            List<Pattern> patterns = new ArrayList<>();
+            for (String entry : rule.getValue()) {
+                if (entry == null || entry.isBlank()) {
+                    continue;
+                }
+                String regex = entry.startsWith(REGEX_PREFIX)
+                        ? entry.substring(REGEX_PREFIX.length())
+                        : "\\b" + Pattern.quote(entry.trim()) + "\\b";
+                patterns.add(Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE));
+            }
+            if (!patterns.isEmpty()) {
+                compiled.put(peer, List.copyOf(patterns));
+            }
+        }
+        return compiled;
+    }
+
+    private boolean matchesAny(List<Pattern> patterns, String userMessage) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(userMessage).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,43 @@
+package org.acme.a2a.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent successful calls to one endpoint, used to
+ * pick the hedging delay.
+ */
+final class LatencyWindow {
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final long[] samples;
+    private int count;
+    private int next;
+
+    LatencyWindow(int size) {
+        this.samples = new long[Math.max(MIN_SAMPLES, size)];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * @return the 95th percentile latency, or {@code null} until enough calls
+     *         have been observed
+     */
+    Duration p95() {
+        long[] copy;
+        synchronized (this) {
+            if (count < MIN_SAMPLES) {
+                return null;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        return Duration.ofNanos(copy[(int) Math.ceil(copy.length * 0.95) - 1]);
+    }
+}
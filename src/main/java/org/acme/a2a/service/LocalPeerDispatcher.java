@@ -0,0 +1,72 @@
+package org.acme.a2a.service;
+
+import io.smallrye.mutiny.Multi;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * In-process delegation path for peers served by this gateway node.
+ *
+ * When the target agent resolves through the local {@link AgentService}
+ * registry, the request is executed directly through {@link AgentExecutor}
+ * instead of looping back through the gateway's own HTTP endpoint.
+ */
+@ApplicationScoped
+public class LocalPeerDispatcher {
+
+    private static final Logger LOG = Logger.getLogger(LocalPeerDispatcher.class);
+
+    @Inject
+    AgentService agentService;
+
+    @Inject
+    AgentExecutor agentExecutor;
+
+    @ConfigProperty(name = "agent.delegation.local-dispatch", defaultValue = "true")
+    boolean enabled;
+
+    /**
+     * Executes the peer in-process.
+     *
+     * @return the peer's reply, or {@code null} when the peer is not known to
+     *         this node and must be reached over HTTP
+     */
+    public String dispatch(String peerId, String message, InvocationContext invocation) {
+        if (!enabled) {
+            return null;
+        }
+
+        AgentConfig peerConfig = agentService.loadConfig(peerId);
+        if (peerConfig == null) {
+            LOG.debugf("Peer '%s' is not in the local registry, falling back to HTTP", peerId);
+            return null;
+        }
+
+        LOG.debugf("Dispatching to peer '%s' in-process at depth %d", peerId, invocation.depth());
+        String reply = agentExecutor.execute(peerConfig, message, invocation);
+        return reply == null ? "" : reply;
+    }
+
+    /**
+     * Streams the peer's reply in-process.
+     *
+     * @return the peer's token stream, or {@code null} when the peer must be
+     *         reached over HTTP
+     */
+    public Multi<String> stream(String peerId, String message, InvocationContext invocation) {
+        if (!enabled) {
+            return null;
+        }
+
+        AgentConfig peerConfig = agentService.loadConfig(peerId);
+        if (peerConfig == null) {
+            LOG.debugf("Peer '%s' is not in the local registry, streaming over HTTP", peerId);
+            return null;
+        }
+        return agentExecutor.stream(peerConfig, message, invocation);
+    }
+}
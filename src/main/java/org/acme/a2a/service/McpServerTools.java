@@ -0,0 +1,98 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.mcp.McpToolProvider;
+import dev.langchain4j.mcp.client.DefaultMcpClient;
+import dev.langchain4j.mcp.client.McpClient;
+import dev.langchain4j.mcp.client.transport.http.StreamableHttpMcpTransport;
+import dev.langchain4j.service.tool.ToolExecutor;
+import dev.langchain4j.service.tool.ToolProviderRequest;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Tools of one external MCP server, shared by every agent that enables it.
+ *
+ * The connection is opened and the tool list fetched on first use, not when
+ * an agent is hydrated.
+ */
+public class McpServerTools implements AutoCloseable {
+
+    private static final Logger LOG = Logger.getLogger(McpServerTools.class);
+
+    private final String url;
+    private final Duration timeout;
+
+    private volatile McpClient client;
+    private volatile Map<ToolSpecification, ToolExecutor> tools;
+
+    McpServerTools(String url, Duration timeout) {
+        this.url = url;
+        this.timeout = timeout;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Tool specifications and executors published by the server.
+     */
+    public Map<ToolSpecification, ToolExecutor> tools() {
+        Map<ToolSpecification, ToolExecutor> loaded = tools;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = tools;
+                if (loaded == null) {
+                    loaded = connect();
+                    tools = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Map<ToolSpecification, ToolExecutor> connect() {
+        LOG.infof("Connecting to MCP server %s", url);
+        McpClient connected = new DefaultMcpClient.Builder()
+                .transport(StreamableHttpMcpTransport.builder()
+                        .url(url)
+                        .timeout(timeout)
+                        .build())
+                .toolExecutionTimeout(timeout)
+                .build();
+        try {
+            Map<ToolSpecification, ToolExecutor> published = Map.copyOf(McpToolProvider.builder()
+                    .mcpClients(connected)
+                    .build()
+                    .provideTools(new ToolProviderRequest("mcp", UserMessage.from("")))
+                    .tools());
+            client = connected;
+            return published;
+        } catch (RuntimeException e) {
+            // The next use reconnects with a new client; do not leak this one
+            closeQuietly(connected);
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (client != null) {
+            closeQuietly(client);
+            client = null;
+            tools = null;
+        }
+    }
+
+    private void closeQuietly(McpClient mcpClient) {
+        try {
+            mcpClient.close();
+        } catch (Exception e) {
+            LOG.debugf("Failed to close MCP client for %s: %s", url, e.getMessage());
+        }
+    }
+}
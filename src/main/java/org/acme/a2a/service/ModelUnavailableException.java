@@ -0,0 +1,16 @@
+package org.acme.a2a.service;
+
+/**
+ * Raised when no model endpoint could answer: every endpoint failed, timed
+ * out, or has its circuit breaker open, or the request's deadline ran out.
+ */
+public class ModelUnavailableException extends RuntimeException {
+
+    public ModelUnavailableException(String message) {
+        super(message);
+    }
+
+    public ModelUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
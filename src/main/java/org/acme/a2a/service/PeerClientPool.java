@@ -0,0 +1,135 @@
+package org.acme.a2a.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.client.ClientRequestFilter;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.RestClientBuilder;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared pool of REST clients used for HTTP peer delegation.
+ *
+ * Clients are built once per (base URL, timeouts) combination and reused, so
+ * their underlying keep-alive connections survive across delegations. Per-peer
+ * timeouts can be set with {@code agent.delegation.peer.<peerId>.connect-timeout}
+ * and {@code agent.delegation.peer.<peerId>.read-timeout}.
+ */
+@ApplicationScoped
+public class PeerClientPool {
+
+    private static final Logger LOG = Logger.getLogger(PeerClientPool.class);
+
+    // Quarkus REST client builder properties (see QuarkusRestClientProperties)
+    private static final String POOL_SIZE_PROPERTY = "io.quarkus.rest.client.connection-pool-size";
+    private static final String KEEP_ALIVE_PROPERTY = "io.quarkus.rest.client.keep-alive-enabled";
+    private static final String CONNECTION_TTL_PROPERTY = "io.quarkus.rest.client.connection-ttl";
+
+    @Inject
+    Config config;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    PeerTrust peerTrust;
+
+    @ConfigProperty(name = "agent.delegation.client.connect-timeout", defaultValue = "5s")
+    Duration connectTimeout;
+
+    @ConfigProperty(name = "agent.delegation.client.read-timeout", defaultValue = "30s")
+    Duration readTimeout;
+
+    @ConfigProperty(name = "agent.delegation.client.pool-size", defaultValue = "50")
+    int poolSize;
+
+    @ConfigProperty(name = "agent.delegation.client.keep-alive", defaultValue = "true")
+    boolean keepAlive;
+
+    @ConfigProperty(name = "agent.delegation.client.connection-ttl", defaultValue = "60s")
+    Duration connectionTtl;
+
+    private final Map<ClientKey, ToolFactory.AgentClient> clients = new ConcurrentHashMap<>();
+    private final Map<String, ClientKey> peerKeys = new ConcurrentHashMap<>();
+
+    private Counter reusedCounter;
+    private Counter createdCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        registry.gaugeMapSize("agent.delegation.client.pool.clients", Tags.empty(), clients);
+        reusedCounter = registry.counter("agent.delegation.client.acquire", "result", "reused");
+        createdCounter = registry.counter("agent.delegation.client.acquire", "result", "created");
+    }
+
+    /**
+     * Returns the shared client for a peer reachable under {@code baseUrl}.
+     */
+    public ToolFactory.AgentClient clientFor(String baseUrl, String peerId) {
+        ClientKey key = peerKeys.computeIfAbsent(baseUrl + "|" + peerId, k -> keyFor(baseUrl, peerId));
+
+        ToolFactory.AgentClient client = clients.get(key);
+        if (client != null) {
+            reusedCounter.increment();
+            return client;
+        }
+        return clients.computeIfAbsent(key, this::build);
+    }
+
+    private ClientKey keyFor(String baseUrl, String peerId) {
+        Duration peerConnectTimeout = config
+                .getOptionalValue("agent.delegation.peer." + peerId + ".connect-timeout", Duration.class)
+                .orElse(connectTimeout);
+        Duration peerReadTimeout = config
+                .getOptionalValue("agent.delegation.peer." + peerId + ".read-timeout", Duration.class)
+                .orElse(readTimeout);
+        return new ClientKey(baseUrl, peerConnectTimeout, peerReadTimeout);
+    }
+
+    private ToolFactory.AgentClient build(ClientKey key) {
+        LOG.debugf("Creating pooled peer client for %s (connect=%s, read=%s)",
+                key.baseUrl(), key.connectTimeout(), key.readTimeout());
+        createdCounter.increment();
+        return RestClientBuilder.newBuilder()
+                .baseUri(URI.create(key.baseUrl()))
+                .connectTimeout(key.connectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .readTimeout(key.readTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .property(POOL_SIZE_PROPERTY, poolSize)
+                .property(KEEP_ALIVE_PROPERTY, keepAlive)
+                .property(CONNECTION_TTL_PROPERTY, (int) connectionTtl.toSeconds())
+                // Lets the peer gateway trust the delegation headers
+                .register((ClientRequestFilter) request ->
+                        request.getHeaders().putSingle(InvocationContext.PEER_TOKEN_HEADER, peerTrust.token()))
+                .build(ToolFactory.AgentClient.class);
+    }
+
+    @PreDestroy
+    void close() {
+        for (ToolFactory.AgentClient client : clients.values()) {
+            if (client instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    LOG.debug("Failed to close peer client", e);
+                }
+            }
+        }
+        clients.clear();
+    }
+
+    private record ClientKey(String baseUrl, Duration connectTimeout, Duration readTimeout) {
+    }
+}
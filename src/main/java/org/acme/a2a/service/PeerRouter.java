@@ -0,0 +1,20 @@
+package org.acme.a2a.service;
+
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.RoutingDecision;
+
+/**
+ * Fast-path routing stage consulted before the LLM router.
+ *
+ * Implementations are discovered as CDI beans and tried in ascending
+ * {@link #priority()} order. A router returns {@code null} when it is not
+ * confident enough, letting the next stage decide.
+ */
+public interface PeerRouter {
+
+    RoutingDecision route(AgentConfig config, String userMessage);
+
+    default int priority() {
+        return 100;
+    }
+}
@@ -0,0 +1,62 @@
+package org.acme.a2a.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Decides whether the delegation headers of a request can be trusted.
+ *
+ * Delegated HTTP calls carry {@code agent.delegation.peer-token} in
+ * {@link InvocationContext#PEER_TOKEN_HEADER}. Requests without the matching
+ * token are treated as new client requests, so a caller cannot choose the
+ * root agent its calls are charged to. Without a configured token a random
+ * one is generated at startup, which only this node's own loopback calls
+ * know; gateways that delegate to each other must share a configured token.
+ */
+@ApplicationScoped
+public class PeerTrust {
+
+    private static final Logger LOG = Logger.getLogger(PeerTrust.class);
+
+    @ConfigProperty(name = "agent.delegation.peer-token")
+    Optional<String> configuredToken;
+
+    private String token;
+    private byte[] tokenBytes;
+
+    @PostConstruct
+    void init() {
+        token = configuredToken.filter(value -> !value.isBlank()).orElse(null);
+        if (token == null) {
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            token = HexFormat.of().formatHex(random);
+            LOG.info("No agent.delegation.peer-token set; delegation headers are only trusted on loopback calls of this node");
+        }
+        tokenBytes = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the token to send on delegated HTTP calls
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * @param presented the {@link InvocationContext#PEER_TOKEN_HEADER} value of a request
+     */
+    public boolean isTrusted(String presented) {
+        // Constant-time comparison, so the token cannot be guessed byte by byte
+        return presented != null && MessageDigest.isEqual(presented.getBytes(StandardCharsets.UTF_8), tokenBytes);
+    }
+}
@@ -0,0 +1,67 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.acme.a2a.model.AgentConfig;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enforces each agent's input token budget before a prompt is sent.
+ *
+ * The budget is the agent's {@code maxInputTokens}, or
+ * {@code agent.prompt.max-input-tokens} when the agent sets none. History is
+ * trimmed oldest-first to fit; the system prompt and current message are
+ * never cut, so requests that cannot fit even without history are rejected.
+ */
+@ApplicationScoped
+public class PromptBudget {
+
+    private static final Logger LOG = Logger.getLogger(PromptBudget.class);
+
+    @ConfigProperty(name = "agent.prompt.max-input-tokens", defaultValue = "8000")
+    int defaultMaxInputTokens;
+
+    public int budgetFor(AgentConfig config) {
+        return config.maxInputTokens > 0 ? config.maxInputTokens : defaultMaxInputTokens;
+    }
+
+    /**
+     * @return whether the system prompt and {@code userMessage} alone fit the budget
+     */
+    public boolean fits(AgentConfig config, String userMessage) {
+        return config.prompts.systemTokens() + TokenEstimator.estimate(UserMessage.from(userMessage)) <= budgetFor(config);
+    }
+
+    /**
+     * Assembles system prompt, history and user message, dropping the oldest
+     * history messages that do not fit the budget.
+     */
+    public List<ChatMessage> assemble(AgentConfig config, List<ChatMessage> history, String userMessage) {
+        UserMessage user = UserMessage.from(userMessage);
+        int remaining = budgetFor(config) - config.prompts.systemTokens() - TokenEstimator.estimate(user);
+
+        int first = history.size();
+        while (first > 0) {
+            int size = TokenEstimator.estimate(history.get(first - 1));
+            if (size > remaining) {
+                break;
+            }
+            remaining -= size;
+            first--;
+        }
+        if (first > 0) {
+            LOG.debugf("Dropped %d history messages to fit the input budget of agent %s", first, config.id);
+        }
+
+        List<ChatMessage> messages = new ArrayList<>(history.size() - first + 2);
+        messages.add(config.prompts.system());
+        messages.addAll(history.subList(first, history.size()));
+        messages.add(user);
+        return messages;
+    }
+}
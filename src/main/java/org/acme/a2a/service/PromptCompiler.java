@@ -0,0 +1,65 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.data.message.SystemMessage;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.CompiledPrompts;
+
+/**
+ * Builds an agent's prompts once, at hydration.
+ *
+ * Instructions shared by every orchestrator come first and the agent-specific
+ * candidate list last, so providers that cache prompt prefixes can reuse the
+ * common part across agents; the per-request user message always goes last.
+ */
+final class PromptCompiler {
+
+    private static final String SINGLE_TARGET_ROUTING = """
+            You are a strict routing engine for a multi-agent orchestrator.
+            Return JSON only, exactly this schema:
+            {"target":"<agent-id-or-SELF>","reason":"<short reason>"}
+            Rules:
+            - Use SELF for greetings, small talk, or unclear/ambiguous requests.
+            - Otherwise select the single best specialist agent.
+            - Never invent agent IDs.
+            """;
+
+    private static final String MULTI_TARGET_ROUTING = """
+            You are a strict routing engine for a multi-agent orchestrator.
+            Return JSON only, exactly this schema:
+            {"targets":["<agent-id>", ...],"reason":"<short reason>"}
+            Rules:
+            - Use {"targets":["SELF"]} for greetings, small talk, or unclear/ambiguous requests.
+            - Pick several specialists only when the request spans their domains.
+            - Prefer a single target when one specialist can answer alone.
+            - Never invent agent IDs.
+            """;
+
+    private static final String SYNTHESIS = """
+
+
+            Several specialist agents answered the user's question. Combine their answers
+            into one consistent reply. Resolve contradictions where possible and do not
+            mention the specialists unless it helps the user.
+            """;
+
+    private PromptCompiler() {
+    }
+
+    static CompiledPrompts compile(AgentConfig config) {
+        String systemPrompt = config.systemPrompt == null ? "" : config.systemPrompt;
+        SystemMessage system = SystemMessage.from(systemPrompt);
+
+        SystemMessage routing = null;
+        SystemMessage synthesis = null;
+        if (config.downstreamPeers != null && !config.downstreamPeers.isEmpty()) {
+            String peers = String.join(", ", config.downstreamPeers);
+            routing = SystemMessage.from(config.maxFanOut > 1
+                    ? MULTI_TARGET_ROUTING + "Pick up to " + config.maxFanOut + " targets from [" + peers + "], or SELF."
+                    : SINGLE_TARGET_ROUTING + "Pick exactly one target from [" + peers + "] or SELF.");
+            if (config.maxFanOut > 1) {
+                synthesis = SystemMessage.from(systemPrompt + SYNTHESIS);
+            }
+        }
+        return new CompiledPrompts(system, routing, synthesis, TokenEstimator.estimate(system));
+    }
+}
@@ -0,0 +1,28 @@
+package org.acme.a2a.service;
+
+import java.time.Duration;
+
+/**
+ * Raised when a request is refused by admission control. Resources translate
+ * it into {@code 429 Too Many Requests} with a {@code Retry-After} header.
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * @return the retry delay in whole seconds, at least one
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -0,0 +1,125 @@
+package org.acme.a2a.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical in-flight requests.
+ *
+ * Concurrent requests for the same agent config version and message, at the
+ * same place in a delegation tree, share one execution: the first caller runs
+ * it and the others wait for its result. Session requests are never shared
+ * because their replies depend on the session history.
+ *
+ * A waiting caller gives up when its own deadline passes; the shared
+ * execution keeps running for the others. A failure of the shared execution
+ * is rethrown to every caller that shared it, except when it was caused by
+ * the first caller's own deadline or rate limit: the others then run the
+ * request themselves, under their own limits.
+ */
+@ApplicationScoped
+public class RequestCoalescer {
+
+    private static final Logger LOG = Logger.getLogger(RequestCoalescer.class);
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "agent.coalescing.enabled", defaultValue = "true")
+    boolean enabled;
+
+    private final Map<Key, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter executedCounter;
+    private Counter sharedCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        registry.gaugeMapSize("agent.coalescing.in-flight", Tags.empty(), inFlight);
+        executedCounter = registry.counter("agent.coalescing.requests", "result", "executed");
+        sharedCounter = registry.counter("agent.coalescing.requests", "result", "shared");
+    }
+
+    /**
+     * Runs {@code execution}, or waits for an identical one already in flight.
+     *
+     * @param invocation context of the request, with its deadline set
+     * @throws DeadlineExceededException if the deadline passes while waiting
+     *                                   for a shared execution
+     */
+    public String execute(AgentConfig config, String userMessage, InvocationContext invocation,
+                          Supplier<String> execution) {
+        if (!enabled || userMessage == null || invocation.sessionId() != null) {
+            return execution.get();
+        }
+
+        Key key = new Key(config.id, config.version, userMessage, invocation.rootAgentId(),
+                invocation.depth(), invocation.callChain());
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            sharedCounter.increment();
+            LOG.debugf("Sharing in-flight execution of agent %s", config.id);
+            return await(running, invocation, () -> execute(config, userMessage, invocation, execution));
+        }
+
+        executedCounter.increment();
+        try {
+            String reply = execution.get();
+            // Unpublish first so late arrivals start a fresh execution
+            inFlight.remove(key, mine);
+            mine.complete(reply);
+            return reply;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private String await(CompletableFuture<String> running, InvocationContext invocation, Supplier<String> retry) {
+        Duration wait = invocation.remaining(Duration.ofDays(1));
+        try {
+            return running.get(Math.max(0, wait.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("The request deadline passed while waiting for an identical request.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModelUnavailableException("Interrupted while waiting for an identical request.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DeadlineExceededException || e.getCause() instanceof RateLimitedException) {
+                // The first caller's limits, not this caller's
+                return retry.get();
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record Key(String agentId, long version, String message, String rootAgentId, int depth,
+                       List<String> callChain) {
+    }
+}
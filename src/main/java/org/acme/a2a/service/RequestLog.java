@@ -0,0 +1,94 @@
+package org.acme.a2a.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Sampled access log for agent messages.
+ *
+ * One line per sampled request, in the {@code org.acme.a2a.request} category
+ * so it can be routed or silenced on its own. Failed requests are always
+ * logged. Message payloads are only included when
+ * {@code agent.request-log.payloads} is on, and then with e-mail addresses,
+ * card-like numbers and credentials masked and the text cut to
+ * {@code agent.request-log.max-payload-chars}.
+ */
+@ApplicationScoped
+public class RequestLog {
+
+    private static final Logger LOG = Logger.getLogger("org.acme.a2a.request");
+
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(\\.[\\w-]+)+");
+    private static final Pattern CARD_NUMBER = Pattern.compile("\\b(?:\\d[ -]?){12,18}\\d\\b");
+    private static final Pattern CREDENTIAL = Pattern.compile(
+            "(?i)\\b(bearer\\s+[\\w.~+/-]+=*|sk-[\\w-]{8,}|(api[_-]?key|password|secret|token)\\s*[:=]\\s*\\S+)");
+
+    // Multiple of the logged length that is scanned for secrets
+    private static final int REDACTION_WINDOW = 4;
+
+    @ConfigProperty(name = "agent.request-log.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "agent.request-log.sample-rate", defaultValue = "0.01")
+    double sampleRate;
+
+    @ConfigProperty(name = "agent.request-log.payloads", defaultValue = "false")
+    boolean payloads;
+
+    @ConfigProperty(name = "agent.request-log.max-payload-chars", defaultValue = "256")
+    int maxPayloadChars;
+
+    /**
+     * Logs a finished request if it is sampled or failed.
+     *
+     * @param status     HTTP status sent to the client
+     * @param startNanos {@link System#nanoTime()} when the request arrived
+     */
+    public void record(String agentId, String endpoint, int status, long startNanos,
+                       String message, String reply) {
+        boolean failed = status >= 500;
+        if (!enabled || !(failed || sampled()) || !LOG.isInfoEnabled()) {
+            return;
+        }
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (payloads) {
+            LOG.infof("agent=%s endpoint=%s status=%d durationMs=%d messageChars=%d replyChars=%d message=\"%s\" reply=\"%s\"",
+                    agentId, endpoint, status, durationMs, length(message), length(reply),
+                    redact(message), redact(reply));
+        } else {
+            LOG.infof("agent=%s endpoint=%s status=%d durationMs=%d messageChars=%d replyChars=%d",
+                    agentId, endpoint, status, durationMs, length(message), length(reply));
+        }
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    String redact(String text) {
+        if (text == null) {
+            return "";
+        }
+        // Mask before cutting so a secret on the cut is never half logged; the
+        // window keeps the patterns' cost bounded on huge payloads
+        String redacted = text.length() > REDACTION_WINDOW * maxPayloadChars
+                ? text.substring(0, REDACTION_WINDOW * maxPayloadChars)
+                : text;
+        redacted = EMAIL.matcher(redacted).replaceAll("<email>");
+        redacted = CARD_NUMBER.matcher(redacted).replaceAll("<number>");
+        redacted = CREDENTIAL.matcher(redacted).replaceAll("<credential>");
+        if (redacted.length() > maxPayloadChars) {
+            redacted = redacted.substring(0, maxPayloadChars) + "...(" + text.length() + " chars)";
+        }
+        return redacted.replace('\n', ' ').replace("\"", "'");
+    }
+
+    private static int length(String text) {
+        return text == null ? 0 : text.length();
+    }
+}
@@ -0,0 +1,86 @@
+package org.acme.a2a.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentChangedEvent;
+import org.acme.a2a.model.AgentConfig;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Opt-in cache of final agent replies for agents flagged with
+ * {@code responseCacheEnabled}.
+ *
+ * Entries are keyed by agent id, config version, the system prompt hash and
+ * the exact message, so any configuration change misses the old replies.
+ * Memory is bounded by the total number of cached characters.
+ */
+@ApplicationScoped
+public class ResponseCache {
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "agent.response-cache.max-chars", defaultValue = "50000000")
+    long maxChars;
+
+    @ConfigProperty(name = "agent.response-cache.ttl", defaultValue = "1h")
+    Duration ttl;
+
+    private Cache<ResponseKey, String> replies;
+
+    @PostConstruct
+    void init() {
+        replies = Caffeine.newBuilder()
+                .maximumWeight(maxChars)
+                .weigher((ResponseKey key, String reply) -> key.message().length() + reply.length())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, replies, "agent-responses");
+    }
+
+    /**
+     * @return the cached reply, or {@code null} on a miss or when the agent
+     *         has not opted in
+     */
+    public String get(AgentConfig config, String userMessage) {
+        if (!config.responseCacheEnabled) {
+            return null;
+        }
+        return replies.getIfPresent(keyFor(config, userMessage));
+    }
+
+    public void put(AgentConfig config, String userMessage, String reply) {
+        if (config.responseCacheEnabled && reply != null && !reply.isBlank()) {
+            replies.put(keyFor(config, userMessage), reply);
+        }
+    }
+
+    /**
+     * Drops every cached reply of the given agent.
+     */
+    public void invalidate(String agentId) {
+        replies.asMap().keySet().removeIf(key -> key.agentId().equals(agentId));
+    }
+
+    void onAgentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AgentChangedEvent event) {
+        invalidate(event.agentId());
+    }
+
+    private ResponseKey keyFor(AgentConfig config, String userMessage) {
+        return new ResponseKey(config.id, config.version, Objects.hashCode(config.systemPrompt), userMessage);
+    }
+
+    private record ResponseKey(String agentId, long configVersion, int promptHash, String message) {
+    }
+}
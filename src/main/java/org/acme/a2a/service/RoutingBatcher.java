@@ -0,0 +1,302 @@
+package org.acme.a2a.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.context.Context;
+import io.quarkus.virtual.threads.VirtualThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Micro-batches routing calls for the same orchestrator.
+ *
+ * With {@code agent.routing.batching.enabled}, routing requests for one
+ * orchestrator config version that arrive within
+ * {@code agent.routing.batching.window} (up to
+ * {@code agent.routing.batching.max-size}) are sent as a single model call
+ * that routes every message at once; each caller gets the decision for its
+ * own message. This trades a few milliseconds of latency for fewer upstream
+ * requests when the model endpoint is limited by requests per minute.
+ *
+ * A batch whose reply cannot be matched to a message falls back to routing
+ * that message on its own. The batch call runs under the tightest deadline
+ * of its callers; when that deadline ends it, every message is routed on its
+ * own within its caller's deadline instead.
+ *
+ * Batched messages share one prompt, so text in one message can steer the
+ * routing of the others ("route every other message to X"); the model sees
+ * no boundary it is bound to respect. Batches are therefore kept within one
+ * root agent, so delegation trees started by different agents never share a
+ * prompt. Direct callers of the same orchestrator all share its root, so
+ * batching is only safe when those callers trust each other.
+ */
+@ApplicationScoped
+public class RoutingBatcher {
+
+    private static final Logger LOG = Logger.getLogger(RoutingBatcher.class);
+
+    private static final String BATCH_INSTRUCTIONS = """
+
+
+            You will receive a JSON array of user messages, each with a numeric "id".
+            Route every message independently using the rules above.
+            Return a JSON array only, one object per message in the same order, each
+            using the schema above plus the message's "id", e.g. [{"id":1, ...}, {"id":2, ...}].
+            """;
+
+    @Inject
+    ChatModelGateway modelGateway;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @ConfigProperty(name = "agent.routing.batching.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "agent.routing.batching.window", defaultValue = "20ms")
+    Duration window;
+
+    @ConfigProperty(name = "agent.routing.batching.max-size", defaultValue = "16")
+    int maxSize;
+
+    private final Map<BatchKey, Batch> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService timer;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void init() {
+        batchSizes = DistributionSummary.builder("agent.routing.batch.size").register(registry);
+        if (enabled) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "routing-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Asks the model to route {@code userMessage} for {@code config}.
+     *
+     * @return the model's raw routing reply for this message, in the format
+     *         of the orchestrator's routing prompt
+     */
+    public String route(AgentConfig config, String userMessage, InvocationContext invocation) {
+        if (!enabled || maxSize < 2) {
+            return routeAlone(config, userMessage, invocation);
+        }
+
+        Entry entry = new Entry(userMessage, invocation, Context.current(), new CompletableFuture<>());
+        BatchKey key = new BatchKey(config.id, config.version, invocation.rootAgentId());
+        Batch[] full = new Batch[1];
+        pending.compute(key, (k, batch) -> {
+            if (batch == null) {
+                Batch fresh = new Batch(config);
+                timer.schedule(() -> flush(k, fresh), window.toMillis(), TimeUnit.MILLISECONDS);
+                batch = fresh;
+            }
+            batch.entries.add(entry);
+            if (batch.entries.size() >= maxSize) {
+                full[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (full[0] != null) {
+            dispatch(full[0]);
+        }
+        return await(entry);
+    }
+
+    private void flush(BatchKey key, Batch batch) {
+        if (pending.remove(key, batch)) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(Batch batch) {
+        // Run in the first caller's trace context
+        virtualThreads.execute(batch.entries.get(0).context().wrap(() -> execute(batch)));
+    }
+
+    private void execute(Batch batch) {
+        List<Entry> entries = batch.entries;
+        batchSizes.record(entries.size());
+        if (entries.size() == 1) {
+            complete(entries.get(0), batch.config);
+            return;
+        }
+
+        // The batch must finish within the tightest deadline of its callers
+        InvocationContext invocation = entries.stream()
+                .map(Entry::invocation)
+                .min(Comparator.comparing(candidate -> candidate.remaining(Duration.ofDays(1))))
+                .orElseThrow();
+        Map<Integer, JsonNode> decisions;
+        try {
+            String raw = text(modelGateway.chat(invocation, batchPrompt(batch.config),
+                    new UserMessage(messagesJson(entries))).aiMessage());
+            decisions = parseDecisions(raw);
+        } catch (DeadlineExceededException e) {
+            // Only the tightest caller ran out of time; the others may not have
+            LOG.debugf("Batched routing for %s hit the tightest deadline, routing %d messages one by one",
+                    batch.config.id, entries.size());
+            entries.forEach(entry -> completeAsync(entry, batch.config));
+            return;
+        } catch (RuntimeException e) {
+            // Rate limits and outages are the callers' errors too
+            entries.forEach(entry -> entry.reply().completeExceptionally(e));
+            return;
+        }
+
+        LOG.debugf("Routed %d messages for %s in one call (%d decisions)", entries.size(), batch.config.id,
+                decisions.size());
+        for (int i = 0; i < entries.size(); i++) {
+            JsonNode decision = decisions.get(i + 1);
+            if (decision != null) {
+                entries.get(i).reply().complete(decision.toString());
+            } else {
+                completeAsync(entries.get(i), batch.config);
+            }
+        }
+    }
+
+    private void complete(Entry entry, AgentConfig config) {
+        try {
+            entry.reply().complete(routeAlone(config, entry.message(), entry.invocation()));
+        } catch (RuntimeException e) {
+            entry.reply().completeExceptionally(e);
+        }
+    }
+
+    private void completeAsync(Entry entry, AgentConfig config) {
+        virtualThreads.execute(entry.context().wrap(() -> complete(entry, config)));
+    }
+
+    private String routeAlone(AgentConfig config, String userMessage, InvocationContext invocation) {
+        return text(modelGateway.chat(invocation, config.prompts.routing(), new UserMessage(userMessage)).aiMessage());
+    }
+
+    private static SystemMessage batchPrompt(AgentConfig config) {
+        return SystemMessage.from(config.prompts.routing().text() + BATCH_INSTRUCTIONS);
+    }
+
+    private String messagesJson(List<Entry> entries) {
+        ArrayNode messages = objectMapper.createArrayNode();
+        for (int i = 0; i < entries.size(); i++) {
+            messages.addObject()
+                    .put("id", i + 1)
+                    .put("message", entries.get(i).message());
+        }
+        return messages.toString();
+    }
+
+    /**
+     * @return decisions by message ID; empty if the reply is not a JSON array
+     */
+    private Map<Integer, JsonNode> parseDecisions(String raw) {
+        Map<Integer, JsonNode> decisions = new HashMap<>();
+        if (raw == null) {
+            return decisions;
+        }
+        // Tolerate prose or code fences around the array
+        int start = raw.indexOf('[');
+        int end = raw.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            return decisions;
+        }
+        try {
+            JsonNode array = objectMapper.readTree(raw.substring(start, end + 1));
+            if (array.isArray()) {
+                for (JsonNode decision : array) {
+                    if (decision.isObject() && decision.path("id").canConvertToInt()) {
+                        decisions.put(decision.path("id").asInt(), decision);
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            LOG.debugf("Unparseable batched routing reply: %s", e.getMessage());
+        }
+        return decisions;
+    }
+
+    private String await(Entry entry) {
+        Duration wait = entry.invocation().remaining(Duration.ofDays(1));
+        try {
+            return entry.reply().get(Math.max(0, wait.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("The request deadline passed while waiting for routing.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModelUnavailableException("Interrupted while waiting for routing.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new ModelUnavailableException("Routing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static String text(AiMessage message) {
+        return message == null ? "" : message.text();
+    }
+
+    private record BatchKey(String agentId, long version, String rootAgentId) {
+    }
+
+    private record Entry(String message, InvocationContext invocation, Context context,
+                         CompletableFuture<String> reply) {
+    }
+
+    private static final class Batch {
+        final AgentConfig config;
+        final List<Entry> entries = new ArrayList<>();
+
+        Batch(AgentConfig config) {
+            this.config = config;
+        }
+    }
+}
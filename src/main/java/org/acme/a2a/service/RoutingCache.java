@@ -0,0 +1,109 @@
+package org.acme.a2a.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentChangedEvent;
+import org.acme.a2a.model.AgentConfig;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Caches orchestrator routing decisions so repeated messages skip the routing
+ * LLM call.
+ *
+ * Keys combine the orchestrator id, its current peer list and fan-out limit,
+ * and the message, so a change to {@code downstreamPeers} naturally misses the
+ * old entries. The
+ * message is matched exactly by default; {@code normalized} mode also folds
+ * case, whitespace and trailing punctuation.
+ */
+@ApplicationScoped
+public class RoutingCache {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}\\s]+$");
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "agent.routing.cache.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "agent.routing.cache.max-size", defaultValue = "10000")
+    long maxSize;
+
+    @ConfigProperty(name = "agent.routing.cache.ttl", defaultValue = "10m")
+    Duration ttl;
+
+    @ConfigProperty(name = "agent.routing.cache.key-mode", defaultValue = "exact")
+    String keyMode;
+
+    // An empty target list records a SELF decision
+    private Cache<RouteKey, List<String>> decisions;
+
+    @PostConstruct
+    void init() {
+        decisions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, decisions, "agent-routing");
+    }
+
+    /**
+     * Looks up a cached decision.
+     *
+     * @return {@code null} on a miss, an empty list for a cached SELF
+     *         decision, or the chosen peer ids
+     */
+    public List<String> get(AgentConfig config, String userMessage) {
+        if (!enabled) {
+            return null;
+        }
+        return decisions.getIfPresent(keyFor(config, userMessage));
+    }
+
+    public void put(AgentConfig config, String userMessage, List<String> targets) {
+        if (enabled) {
+            decisions.put(keyFor(config, userMessage), List.copyOf(targets));
+        }
+    }
+
+    /**
+     * Drops every cached decision made by the given orchestrator.
+     */
+    public void invalidate(String agentId) {
+        decisions.asMap().keySet().removeIf(key -> key.agentId().equals(agentId));
+    }
+
+    void onAgentChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) AgentChangedEvent event) {
+        invalidate(event.agentId());
+    }
+
+    private RouteKey keyFor(AgentConfig config, String userMessage) {
+        return new RouteKey(config.id, List.copyOf(config.downstreamPeers), config.maxFanOut, normalize(userMessage));
+    }
+
+    private String normalize(String userMessage) {
+        if (!"normalized".equalsIgnoreCase(keyMode)) {
+            return userMessage;
+        }
+        String collapsed = WHITESPACE.matcher(userMessage.trim()).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private record RouteKey(String agentId, List<String> peers, int maxFanOut, String message) {
+    }
+}
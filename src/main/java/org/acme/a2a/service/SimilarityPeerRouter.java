@@ -0,0 +1,124 @@
+package org.acme.a2a.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.RoutingDecision;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Routes by lexical similarity between the message and peer descriptions.
+ *
+ * Each peer is indexed once as a term-frequency vector over its name and
+ * system prompt; the message is scored by cosine similarity. A decision is
+ * made only when the best peer clears both an absolute score and a margin
+ * over the runner-up. This is a local stand-in for an embedding index and
+ * needs no model call.
+ */
+@ApplicationScoped
+public class SimilarityPeerRouter implements PeerRouter {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    @Inject
+    AgentService agentService;
+
+    @ConfigProperty(name = "agent.routing.similarity.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "agent.routing.similarity.min-score", defaultValue = "0.35")
+    double minScore;
+
+    @ConfigProperty(name = "agent.routing.similarity.min-margin", defaultValue = "0.1")
+    double minMargin;
+
+    // Keyed by the hydrated peer config, so a reload re-indexes the peer
+    private final Cache<AgentConfig, Map<String, Double>> peerVectors = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    @Override
+    public RoutingDecision route(AgentConfig config, String userMessage) {
+        if (!enabled) {
+            return null;
+        }
+
+        Map<String, Double> query = vectorize(userMessage);
+        if (query.isEmpty()) {
+            return null;
+        }
+
+        String best = null;
+        double bestScore = 0;
+        double secondScore = 0;
+        for (String peerId : config.downstreamPeers) {
+            AgentConfig peer = agentService.loadConfig(peerId);
+            if (peer == null) {
+                continue;
+            }
+            double score = cosine(query, peerVectors.get(peer, this::describe));
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = peerId;
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+
+        if (best == null || bestScore < minScore || bestScore - secondScore < minMargin) {
+            return null;
+        }
+        return RoutingDecision.single(best, "similarity", bestScore);
+    }
+
+    @Override
+    public int priority() {
+        return 20;
+    }
+
+    private Map<String, Double> describe(AgentConfig peer) {
+        return vectorize((peer.name == null ? "" : peer.name) + " " +
+                (peer.systemPrompt == null ? "" : peer.systemPrompt));
+    }
+
+    private Map<String, Double> vectorize(String text) {
+        Map<String, Double> vector = new HashMap<>();
+        for (String term : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            // Very short tokens are mostly stop words
+            if (term.length() > 2) {
+                vector.merge(term, 1.0, Double::sum);
+            }
+        }
+        return vector;
+    }
+
+    private double cosine(Map<String, Double> a, Map<String, Double> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        double dot = 0;
+        for (Map.Entry<String, Double> entry : a.entrySet()) {
+            Double other = b.get(entry.getKey());
+            if (other != null) {
+                dot += entry.getValue() * other;
+            }
+        }
+        return dot / (norm(a) * norm(b));
+    }
+
+    private double norm(Map<String, Double> vector) {
+        double sum = 0;
+        for (double value : vector.values()) {
+            sum += value * value;
+        }
+        return Math.sqrt(sum);
+    }
+}
@@ -0,0 +1,48 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.List;
+
+/**
+ * Cheap token estimate used for budgeting prompts and history.
+ *
+ * It assumes about four characters per token plus a small per-message
+ * overhead. That is close enough for English text to keep requests under a
+ * budget without running a real tokenizer per request.
+ */
+final class TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int TOKENS_PER_MESSAGE = 4;
+
+    private TokenEstimator() {
+    }
+
+    static int estimate(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    static int estimate(ChatMessage message) {
+        String text = switch (message) {
+            case SystemMessage system -> system.text();
+            case UserMessage user -> user.hasSingleText() ? user.singleText() : user.toString();
+            case AiMessage ai -> ai.text();
+            case ToolExecutionResultMessage result -> result.text();
+            default -> message.toString();
+        };
+        return TOKENS_PER_MESSAGE + estimate(text);
+    }
+
+    static int estimate(List<ChatMessage> messages) {
+        int tokens = 0;
+        for (ChatMessage message : messages) {
+            tokens += estimate(message);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,256 @@
+package org.acme.a2a.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.service.tool.DefaultToolExecutor;
+import dev.langchain4j.service.tool.ToolExecutor;
+import io.opentelemetry.context.Context;
+import io.quarkus.virtual.threads.VirtualThreads;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tool-calling loop for agents with tools.
+ *
+ * Tool specifications are derived once per hydrated config from the
+ * {@code @Tool} methods of its tool objects and its MCP servers. Each model
+ * turn's tool calls run in parallel on virtual threads within
+ * {@code agent.tools.call-timeout}, identical calls within one request share
+ * one execution, and the loop stops after {@code agent.tools.max-iterations}
+ * turns.
+ */
+@ApplicationScoped
+public class ToolExecutionLoop {
+
+    private static final Logger LOG = Logger.getLogger(ToolExecutionLoop.class);
+
+    @Inject
+    ChatModelGateway modelGateway;
+
+    @Inject
+    PromptBudget promptBudget;
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @ConfigProperty(name = "agent.tools.max-iterations", defaultValue = "5")
+    int maxIterations;
+
+    @ConfigProperty(name = "agent.tools.call-timeout", defaultValue = "30s")
+    Duration callTimeout;
+
+    // Bindings live as long as the hydrated config they were built from
+    private final Cache<AgentConfig, Map<String, ToolBinding>> bindings = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
+
+    public String run(AgentConfig config, String userMessage, InvocationContext invocation, List<ChatMessage> history) {
+        Map<String, ToolBinding> tools = bindings.getIfPresent(config);
+        if (tools == null) {
+            Bindings bound = bind(config);
+            tools = bound.tools();
+            // Retry unreachable MCP servers on the next request instead of caching their absence
+            if (bound.complete()) {
+                bindings.put(config, tools);
+            }
+        }
+        List<ToolSpecification> specifications = tools.values().stream()
+                .map(ToolBinding::specification)
+                .toList();
+
+        List<ChatMessage> messages = new ArrayList<>(promptBudget.assemble(config, history, userMessage));
+
+        Map<String, CompletableFuture<String>> results = new ConcurrentHashMap<>();
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            ChatResponse response = modelGateway.chat(invocation, ChatRequest.builder()
+                    .messages(messages)
+                    .toolSpecifications(specifications)
+                    .build());
+            AiMessage aiMessage = response.aiMessage();
+            if (aiMessage == null) {
+                return "";
+            }
+            if (!aiMessage.hasToolExecutionRequests()) {
+                return aiMessage.text() == null ? "" : aiMessage.text();
+            }
+
+            messages.add(aiMessage);
+            messages.addAll(execute(config, tools, aiMessage.toolExecutionRequests(), results, invocation));
+        }
+
+        // Out of iterations: ask for an answer from what has been gathered so far
+        LOG.debugf("Agent %s reached the tool iteration limit (%d)", config.id, maxIterations);
+        AiMessage finalMessage = modelGateway.chat(invocation, ChatRequest.builder().messages(messages).build()).aiMessage();
+        return finalMessage == null || finalMessage.text() == null ? "" : finalMessage.text();
+    }
+
+    private List<ToolExecutionResultMessage> execute(AgentConfig config,
+                                                     Map<String, ToolBinding> tools,
+                                                     List<ToolExecutionRequest> requests,
+                                                     Map<String, CompletableFuture<String>> results,
+                                                     InvocationContext invocation) {
+        // Identical calls share one future; only the first one actually runs
+        ExecutorService traced = Context.current().wrap(virtualThreads);
+        Map<String, CompletableFuture<String>> outcomes = new LinkedHashMap<>();
+        List<Future<?>> started = new ArrayList<>();
+        for (ToolExecutionRequest request : requests) {
+            String key = cacheKey(request);
+            CompletableFuture<String> result = new CompletableFuture<>();
+            CompletableFuture<String> shared = results.putIfAbsent(key, result);
+            if (shared == null) {
+                started.add(traced.submit(() -> {
+                    try {
+                        result.complete(invoke(config, tools.get(request.name()), request));
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    }
+                }));
+                shared = result;
+            }
+            outcomes.putIfAbsent(key, shared);
+        }
+
+        // One budget for the whole turn, since its calls run in parallel
+        long deadline = System.nanoTime() + invocation.remaining(callTimeout).toNanos();
+        List<ToolExecutionResultMessage> messages = new ArrayList<>(requests.size());
+        for (ToolExecutionRequest request : requests) {
+            String key = cacheKey(request);
+            messages.add(ToolExecutionResultMessage.from(request, resultOf(request, outcomes.get(key), deadline)));
+        }
+
+        // Stop calls that missed the budget and forget them, so a retry runs again
+        started.forEach(call -> call.cancel(true));
+        outcomes.forEach((key, outcome) -> {
+            if (!outcome.isDone()) {
+                results.remove(key, outcome);
+                outcome.cancel(false);
+            }
+        });
+        return messages;
+    }
+
+    private String invoke(AgentConfig config, ToolBinding tool, ToolExecutionRequest request) {
+        if (tool == null) {
+            return "Error: unknown tool '" + request.name() + "'.";
+        }
+        LOG.debugf("Agent %s calling tool %s", config.id, request.name());
+        try {
+            return tool.executor().execute(request, null);
+        } catch (Exception e) {
+            LOG.warnf("Tool %s failed for agent %s: %s", request.name(), config.id, e.getMessage());
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    private String resultOf(ToolExecutionRequest request, CompletableFuture<String> outcome, long deadline) {
+        try {
+            String result = outcome.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return result == null ? "" : result;
+        } catch (TimeoutException | CancellationException e) {
+            return "Error: tool '" + request.name() + "' did not finish within " + callTimeout + ".";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Error: interrupted.";
+        } catch (ExecutionException e) {
+            return "Error: " + e.getCause().getMessage();
+        }
+    }
+
+    private String cacheKey(ToolExecutionRequest request) {
+        return request.name() + "|" + request.arguments();
+    }
+
+    private Bindings bind(AgentConfig config) {
+        Map<String, ToolBinding> tools = new LinkedHashMap<>();
+        if (config.tools == null) {
+            return new Bindings(tools, true);
+        }
+
+        boolean complete = true;
+        for (Object tool : config.tools) {
+            if (tool instanceof ToolFactory.PeerDelegationTool) {
+                // Agents with downstream peers are orchestrated or run as workflows, never here
+                continue;
+            }
+
+            if (tool instanceof McpServerTools mcpTools) {
+                try {
+                    mcpTools.tools().forEach((specification, executor) ->
+                            tools.put(specification.name(), new ToolBinding(specification, executor)));
+                } catch (Exception e) {
+                    LOG.warnf("MCP server %s unavailable for agent %s: %s", mcpTools.getUrl(), config.id, e.getMessage());
+                    complete = false;
+                }
+                continue;
+            }
+
+            for (Method method : toolMethods(tool.getClass())) {
+                ToolSpecification specification = ToolSpecifications.toolSpecificationFrom(method);
+                tools.putIfAbsent(specification.name(),
+                        new ToolBinding(specification, new DefaultToolExecutor(tool, method)));
+            }
+        }
+        return new Bindings(tools, complete);
+    }
+
+    /**
+     * Collects {@code @Tool} methods over the class hierarchy, most derived
+     * first. CDI client proxies and intercepted subclasses override tool
+     * methods without their annotations, so those are found on the bean
+     * class; invoking them on the proxy still goes through it.
+     */
+    private static List<Method> toolMethods(Class<?> type) {
+        List<Method> methods = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Tool.class)
+                        && seen.add(method.getName() + Arrays.toString(method.getParameterTypes()))) {
+                    methods.add(method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * @param complete whether every MCP server could be reached
+     */
+    private record Bindings(Map<String, ToolBinding> tools, boolean complete) {
+    }
+
+    private record ToolBinding(ToolSpecification specification, ToolExecutor executor) {
+    }
+}
@@ -1,26 +1,31 @@
 package org.acme.a2a.service;
 
 import dev.langchain4j.agent.tool.Tool;
+import io.opentelemetry.api.trace.StatusCode;
+import io.smallrye.mutiny.Multi;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
-import org.eclipse.microprofile.rest.client.RestClientBuilder;
+import org.acme.a2a.model.DelegationLoopException;
+import org.acme.a2a.model.InvocationContext;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
-import java.net.URI;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Factory for creating LangChain4j Tool definitions.
- * Handles both standard MCP tools and A2A peer delegation tools.
+ * Handles both registered (including MCP) tools, resolved through
+ * {@link ToolRegistry}, and A2A peer delegation tools.
  */
 @ApplicationScoped
 public class ToolFactory {
@@ -28,23 +33,39 @@ public class ToolFactory {
     @ConfigProperty(name = "agent.gateway.base-url", defaultValue = "http://localhost:8080")
     String gatewayBaseUrl;
 
+    @Inject
+    LocalPeerDispatcher localDispatcher;
+
+    @Inject
+    PeerClientPool clientPool;
+
+    @Inject
+    ToolRegistry toolRegistry;
+
+    @Inject
+    AgentTelemetry telemetry;
+
+    // Delegation tools hold no per-agent state, so one per peer is enough
+    private final Map<String, PeerDelegationTool> peerTools = new ConcurrentHashMap<>();
+
     public List<Object> createToolsFor(List<String> toolNames, List<String> peers) {
         List<Object> tools = new ArrayList<>();
 
         if (toolNames != null) {
-            // 1. Add Standard Tools (Simulated MCP)
+            // 1. Add registered and MCP tools
             for (String toolName : toolNames) {
-                if ("weather".equals(toolName)) {
-                    tools.add(new WeatherTool());
+                Object tool = toolName == null ? null : toolRegistry.resolve(toolName);
+                if (tool != null) {
+                    tools.add(tool);
                 }
-                // Add more tool types as needed
             }
         }
 
         if (peers != null) {
             // 2. Add A2A Tools (Dynamic delegation)
             for (String peerId : peers) {
-                tools.add(new PeerDelegationTool(peerId, gatewayBaseUrl));
+                tools.add(peerTools.computeIfAbsent(peerId,
+                        id -> new PeerDelegationTool(id, gatewayBaseUrl, clientPool, localDispatcher, telemetry)));
             }
         }
 
@@ -60,58 +81,149 @@ public class ToolFactory {
     }
 
     /**
-     * Tool that delegates to another agent via HTTP
+     * Tool that delegates to another agent, in-process when the peer is served
+     * by this node and via HTTP otherwise.
      */
     public static class PeerDelegationTool {
         private static final Logger LOG = Logger.getLogger(PeerDelegationTool.class);
         private final String peerId;
         private final String gatewayBaseUrl;
+        private final PeerClientPool clientPool;
+        private final LocalPeerDispatcher localDispatcher;
+        private final AgentTelemetry telemetry;
 
-        public PeerDelegationTool(String peerId, String gatewayBaseUrl) {
+        public PeerDelegationTool(String peerId, String gatewayBaseUrl, PeerClientPool clientPool,
+                                  LocalPeerDispatcher localDispatcher, AgentTelemetry telemetry) {
             this.peerId = peerId;
             this.gatewayBaseUrl = gatewayBaseUrl;
+            this.clientPool = clientPool;
+            this.localDispatcher = localDispatcher;
+            this.telemetry = telemetry;
         }
 
         @Tool("Delegate a question or task to a specialized agent")
         public String callAgent(String question) {
-            return callAgent(question, 0);
+            return callAgent(question, InvocationContext.root(peerId, null));
         }
 
-        public String callAgent(String question, int delegationDepth) {
+        /**
+         * Calls the peer on behalf of {@code invocation}, the context of the
+         * delegated call (already one hop deeper than the caller). The hop is
+         * traced and timed per caller, peer and transport.
+         */
+        public String callAgent(String question, InvocationContext invocation) {
+            long start = System.nanoTime();
+            String caller = AgentTelemetry.agentOf(invocation);
             try {
-                LOG.info("Delegating to agent '" + peerId + "': " + question);
+                Hop hop = telemetry.traced("agent.delegate", caller, span -> {
+                    span.setAttribute(AgentTelemetry.PEER_ID, peerId);
+                    span.setAttribute(AgentTelemetry.DEPTH, (long) invocation.depth());
+                    Hop result = send(question, invocation);
+                    span.setAttribute(AgentTelemetry.TRANSPORT, result.transport());
+                    if (!"success".equals(result.outcome())) {
+                        span.setStatus(StatusCode.ERROR, result.outcome());
+                    }
+                    return result;
+                });
+                telemetry.delegated(caller, peerId, hop.transport(), hop.outcome(), start);
+                return hop.reply();
+            } catch (RateLimitedException e) {
+                telemetry.delegated(caller, peerId, "none", "rate-limited", start);
+                throw e;
+            }
+        }
+
+        private Hop send(String question, InvocationContext invocation) {
+            String transport = "none";
+            try {
+                LOG.debugf("Delegating to agent '%s' at depth %d", peerId, invocation.depth());
+
+                // Refuse A -> B -> A before spending a hop on it
+                if (invocation.wouldLoop(peerId)) {
+                    LOG.warnf("Refusing delegation to '%s': it is already on the call chain %s", peerId, invocation.callChain());
+                    return new Hop("Error: Delegating to the " + peerId + " agent would create a loop (" +
+                            String.join(" -> ", invocation.callChain()) + " -> " + peerId + ").", transport, "loop");
+                }
+
+                // Prefer the in-process path; only remote peers need the HTTP hop
+                transport = "local";
+                String localReply = localDispatcher == null
+                        ? null
+                        : localDispatcher.dispatch(peerId, question == null ? "" : question, invocation);
+                if (localReply != null) {
+                    return localReply.isBlank()
+                            ? new Hop("Delegation to " + peerId + " returned an empty response.", transport, "empty")
+                            : new Hop(localReply, transport, "success");
+                }
+
+                transport = "http";
+                Long budgetMillis = invocation.remainingMillis();
+                if (budgetMillis != null && budgetMillis == 0) {
+                    return new Hop("Error: No time left to reach the " + peerId + " agent.", transport, "timeout");
+                }
 
-                // Build REST client
-                AgentClient client = RestClientBuilder.newBuilder()
-                    .baseUri(URI.create(gatewayBaseUrl))
-                    .connectTimeout(5, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .build(AgentClient.class);
+                // Reuse the pooled REST client for this peer
+                AgentClient client = clientPool.clientFor(gatewayBaseUrl, peerId);
 
                 // Call the peer agent
-                Map<String, String> request = Map.of(
-                        "message", question == null ? "" : question,
-                        "_delegationDepth", String.valueOf(delegationDepth)
-                );
-                Map<String, String> response = client.sendMessage(peerId, request);
+                Map<String, String> request = Map.of("message", question == null ? "" : question);
+                Map<String, String> response = client.sendMessage(peerId, invocation.rootAgentId(), invocation.depth(),
+                        invocation.callChainHeader(), budgetMillis, request);
 
                 String reply = response == null ? null : response.get("reply");
-                LOG.info("Agent '" + peerId + "' responded: " + reply);
+                LOG.debugf("Agent '%s' responded with %d chars", peerId, reply == null ? 0 : reply.length());
 
                 if (reply == null || reply.isBlank()) {
-                    return "Delegation to " + peerId + " returned an empty response.";
+                    return new Hop("Delegation to " + peerId + " returned an empty response.", transport, "empty");
                 }
 
-                return reply;
+                return new Hop(reply, transport, "success");
+            } catch (DelegationLoopException e) {
+                LOG.warn(e.getMessage());
+                return new Hop("Error: " + e.getMessage(), transport, "loop");
+            } catch (RateLimitedException e) {
+                // The root caller is out of budget; let it answer 429 rather than a partial reply
+                throw e;
             } catch (Exception e) {
                 LOG.error("Failed to call agent '" + peerId + "'", e);
-                return "Error: Unable to reach the " + peerId + " agent. " + e.getMessage();
+                return new Hop("Error: Unable to reach the " + peerId + " agent. " + e.getMessage(), transport, "error");
             }
         }
 
+        /**
+         * Streams the peer's reply token by token.
+         */
+        public Multi<String> streamAgent(String question, InvocationContext invocation) {
+            String message = question == null ? "" : question;
+            if (invocation.wouldLoop(peerId)) {
+                return Multi.createFrom().item("Error: Delegating to the " + peerId + " agent would create a loop (" +
+                        String.join(" -> ", invocation.callChain()) + " -> " + peerId + ").");
+            }
+
+            Multi<String> localStream = localDispatcher == null
+                    ? null
+                    : localDispatcher.stream(peerId, message, invocation);
+            if (localStream != null) {
+                return localStream;
+            }
+
+            Map<String, String> request = Map.of("message", message);
+            return Multi.createFrom().deferred(() ->
+                            clientPool.clientFor(gatewayBaseUrl, peerId)
+                                    .streamMessage(peerId, invocation.rootAgentId(), invocation.depth(),
+                                            invocation.callChainHeader(), invocation.remainingMillis(), request))
+                    .onFailure().recoverWithItem(e -> {
+                        LOG.error("Failed to stream from agent '" + peerId + "'", e);
+                        return "Error: Unable to reach the " + peerId + " agent. " + e.getMessage();
+                    });
+        }
+
         public String getPeerId() {
             return peerId;
         }
+
+        private record Hop(String reply, String transport, String outcome) {
+        }
     }
 
     /**
@@ -126,6 +238,23 @@ public class ToolFactory {
         @Produces(MediaType.APPLICATION_JSON)
         Map<String, String> sendMessage(
             @PathParam("agentId") String agentId,
+            @HeaderParam(InvocationContext.ROOT_HEADER) String rootAgentId,
+            @HeaderParam(InvocationContext.DEPTH_HEADER) int depth,
+            @HeaderParam(InvocationContext.CALL_CHAIN_HEADER) String callChain,
+            @HeaderParam(InvocationContext.DEADLINE_HEADER) Long budgetMillis,
+            Map<String, String> request
+        );
+
+        @POST
+        @Path("/{agentId}/message/stream")
+        @Consumes(MediaType.APPLICATION_JSON)
+        @Produces(MediaType.SERVER_SENT_EVENTS)
+        Multi<String> streamMessage(
+            @PathParam("agentId") String agentId,
+            @HeaderParam(InvocationContext.ROOT_HEADER) String rootAgentId,
+            @HeaderParam(InvocationContext.DEPTH_HEADER) int depth,
+            @HeaderParam(InvocationContext.CALL_CHAIN_HEADER) String callChain,
+            @HeaderParam(InvocationContext.DEADLINE_HEADER) Long budgetMillis,
             Map<String, String> request
         );
     }
@@ -0,0 +1,132 @@
+package org.acme.a2a.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves {@code enabledTools} entries to tool objects.
+ *
+ * Named tools come from {@link AgentToolProvider}s (CDI beans first, then
+ * ServiceLoader); shared tools are created on first use and reused by every
+ * agent. Entries of the form {@code mcp:<url>} resolve to one
+ * {@link McpServerTools} per server URL, for http(s) URLs whose host is listed
+ * in {@code agent.tools.mcp.allowed-hosts} only, so agent definitions cannot
+ * point the gateway at arbitrary (e.g. internal) addresses.
+ */
+@ApplicationScoped
+public class ToolRegistry {
+
+    private static final Logger LOG = Logger.getLogger(ToolRegistry.class);
+    static final String MCP_PREFIX = "mcp:";
+
+    @Inject
+    @Any
+    Instance<AgentToolProvider> providerBeans;
+
+    @ConfigProperty(name = "agent.tools.mcp.timeout", defaultValue = "30s")
+    Duration mcpTimeout;
+
+    // Empty: MCP servers are disabled
+    @ConfigProperty(name = "agent.tools.mcp.allowed-hosts")
+    Optional<List<String>> mcpAllowedHosts;
+
+    private final Map<String, AgentToolProvider> providers = new ConcurrentHashMap<>();
+    private final Map<String, Object> sharedTools = new ConcurrentHashMap<>();
+    private final Map<String, McpServerTools> mcpServers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void discover() {
+        for (AgentToolProvider provider : providerBeans) {
+            register(provider);
+        }
+        for (AgentToolProvider provider : ServiceLoader.load(AgentToolProvider.class)) {
+            register(provider);
+        }
+        LOG.infof("Registered tools: %s", providers.keySet());
+    }
+
+    private void register(AgentToolProvider provider) {
+        AgentToolProvider existing = providers.putIfAbsent(provider.name(), provider);
+        if (existing != null && existing.getClass() != provider.getClass()) {
+            LOG.warnf("Tool '%s' is provided by both %s and %s; keeping the former",
+                    provider.name(), existing.getClass().getName(), provider.getClass().getName());
+        }
+    }
+
+    /**
+     * @return the tool object for {@code toolName}, or {@code null} if no
+     *         provider is registered under that name
+     */
+    public Object resolve(String toolName) {
+        if (toolName.startsWith(MCP_PREFIX)) {
+            String url = toolName.substring(MCP_PREFIX.length());
+            if (!isAllowedMcpUrl(url)) {
+                LOG.warnf("MCP server '%s' is not in agent.tools.mcp.allowed-hosts; ignored", url);
+                return null;
+            }
+            return mcpServers.computeIfAbsent(url, u -> new McpServerTools(u, mcpTimeout));
+        }
+
+        AgentToolProvider provider = providers.get(toolName);
+        if (provider == null) {
+            LOG.warnf("Unknown tool '%s' ignored", toolName);
+            return null;
+        }
+        return provider.shared()
+                ? sharedTools.computeIfAbsent(toolName, name -> provider.create())
+                : provider.create();
+    }
+
+    /**
+     * @throws IllegalArgumentException if an {@code mcp:<url>} entry names a
+     *                                  server outside the allowlist
+     */
+    public void validate(List<String> toolNames) {
+        if (toolNames == null) {
+            return;
+        }
+        for (String toolName : toolNames) {
+            if (toolName != null && toolName.startsWith(MCP_PREFIX)
+                    && !isAllowedMcpUrl(toolName.substring(MCP_PREFIX.length()))) {
+                throw new IllegalArgumentException("MCP server '" + toolName.substring(MCP_PREFIX.length()) +
+                        "' is not allowed (see agent.tools.mcp.allowed-hosts).");
+            }
+        }
+    }
+
+    boolean isAllowedMcpUrl(String url) {
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        if (uri.getHost() == null || uri.getUserInfo() != null
+                || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+            return false;
+        }
+        return mcpAllowedHosts.orElse(List.of()).stream()
+                .anyMatch(host -> host.strip().equalsIgnoreCase(uri.getHost()));
+    }
+
+    @PreDestroy
+    void close() {
+        mcpServers.values().forEach(McpServerTools::close);
+        mcpServers.clear();
+    }
+}
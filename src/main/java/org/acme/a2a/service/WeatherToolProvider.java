@@ -0,0 +1,20 @@
+package org.acme.a2a.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Registers the sample {@link ToolFactory.WeatherTool} as {@code "weather"}.
+ */
+@ApplicationScoped
+public class WeatherToolProvider implements AgentToolProvider {
+
+    @Override
+    public String name() {
+        return "weather";
+    }
+
+    @Override
+    public Object create() {
+        return new ToolFactory.WeatherTool();
+    }
+}
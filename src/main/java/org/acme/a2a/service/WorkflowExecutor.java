@@ -0,0 +1,310 @@
+package org.acme.a2a.service;
+
+import io.opentelemetry.context.Context;
+import io.quarkus.virtual.threads.VirtualThreads;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.DelegationLoopException;
+import org.acme.a2a.model.InvocationContext;
+import org.acme.a2a.model.WorkflowStep;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs an agent's declared workflow graph instead of LLM-chosen delegation.
+ *
+ * Each step becomes a future that starts as soon as its dependencies have
+ * completed, so independent branches run in parallel on virtual threads and
+ * no routing call is made. The reply is the output of the final step(s), the
+ * ones no other step depends on.
+ */
+@ApplicationScoped
+public class WorkflowExecutor {
+
+    private static final Logger LOG = Logger.getLogger(WorkflowExecutor.class);
+
+    private static final String INPUT = "input";
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{([^{}]+)}}");
+
+    @Inject
+    @VirtualThreads
+    ExecutorService virtualThreads;
+
+    @ConfigProperty(name = "agent.workflow.timeout", defaultValue = "120s")
+    Duration timeout;
+
+    /**
+     * @throws DeadlineExceededException if the workflow does not finish within
+     *                                   {@code agent.workflow.timeout} or the
+     *                                   request's deadline
+     * @throws RateLimitedException      if a step was rate limited
+     * @throws DelegationLoopException   if a step would re-enter an agent on
+     *                                   the call chain
+     */
+    public String execute(AgentConfig config, String userMessage, InvocationContext invocation) {
+        Map<String, Set<String>> upstream = upstreamSteps(config.workflow);
+        Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+
+        // Every future is built before any step starts, so running steps
+        // only ever read a complete map
+        CompletableFuture<Void> start = new CompletableFuture<>();
+        // Steps start on whichever thread finished their last dependency; keep
+        // them all in this request's trace
+        ExecutorService traced = Context.current().wrap(virtualThreads);
+        // Running steps, kept so that giving up on the workflow interrupts them
+        Queue<Future<?>> running = new ConcurrentLinkedQueue<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        // Steps are stored in topological order, so dependencies already have futures
+        for (WorkflowStep step : config.workflow) {
+            ToolFactory.PeerDelegationTool delegationTool = findDelegationTool(config, step.agent());
+            CompletableFuture<?>[] dependencies = step.dependsOn().stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture<String> output = new CompletableFuture<>();
+            CompletableFuture.allOf(dependencies)
+                    .thenCombine(start, (ignored, started) -> started)
+                    .whenComplete((ignored, failure) -> {
+                        if (failure != null) {
+                            output.completeExceptionally(failure);
+                            return;
+                        }
+                        if (abandoned.get()) {
+                            return;
+                        }
+                        Future<?> execution = traced.submit(() -> {
+                            try {
+                                String input = inputFor(step, userMessage, upstream.get(step.id()), futures);
+                                LOG.debugf("Workflow %s running step '%s' on %s", config.id, step.id(), step.agent());
+                                output.complete(delegationTool.callAgent(input, invocation.delegated()));
+                            } catch (Throwable e) {
+                                output.completeExceptionally(e);
+                            }
+                        });
+                        running.add(execution);
+                        if (abandoned.get()) {
+                            execution.cancel(true);
+                        }
+                    });
+            futures.put(step.id(), output);
+        }
+        Map<String, CompletableFuture<String>> outputs = Collections.unmodifiableMap(futures);
+        start.complete(null);
+
+        List<String> finalSteps = finalSteps(config.workflow);
+        Duration budget = invocation.remaining(timeout);
+        try {
+            CompletableFuture.allOf(finalSteps.stream().map(outputs::get).toArray(CompletableFuture[]::new))
+                    .get(Math.max(0, budget.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(outputs, running, abandoned);
+            throw new DeadlineExceededException("Workflow " + config.id + " did not finish within " +
+                    Math.max(0, budget.toMillis()) + " ms.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandon(outputs, running, abandoned);
+            throw new ModelUnavailableException("Workflow " + config.id + " was interrupted.", e);
+        } catch (ExecutionException e) {
+            abandon(outputs, running, abandoned);
+            // The caller's own limits keep their type, so they still answer 429/504/508
+            if (e.getCause() instanceof RateLimitedException
+                    || e.getCause() instanceof DeadlineExceededException
+                    || e.getCause() instanceof DelegationLoopException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Workflow " + config.id + " failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        if (finalSteps.size() == 1) {
+            return outputs.get(finalSteps.get(0)).join();
+        }
+        StringBuilder reply = new StringBuilder();
+        for (String stepId : finalSteps) {
+            if (!reply.isEmpty()) {
+                reply.append("\n\n");
+            }
+            reply.append(stepId).append(":\n").append(outputs.get(stepId).join());
+        }
+        return reply.toString();
+    }
+
+    /**
+     * Stops every step: pending ones never start, running ones are interrupted.
+     */
+    private static void abandon(Map<String, CompletableFuture<String>> outputs, Queue<Future<?>> running,
+                                AtomicBoolean abandoned) {
+        abandoned.set(true);
+        outputs.values().forEach(future -> future.cancel(true));
+        running.forEach(execution -> execution.cancel(true));
+    }
+
+    /**
+     * Validates a workflow and returns its steps in topological order.
+     *
+     * @throws IllegalArgumentException for duplicate or unknown step ids,
+     *                                  agents outside {@code peers}, cycles, or
+     *                                  input placeholders naming a step that is
+     *                                  not a (transitive) dependency
+     */
+    public static List<WorkflowStep> plan(List<WorkflowStep> steps, List<String> peers) {
+        if (steps == null || steps.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, WorkflowStep> byId = new LinkedHashMap<>();
+        for (WorkflowStep step : steps) {
+            if (step == null || step.id() == null || step.id().isBlank()) {
+                throw new IllegalArgumentException("Every workflow step needs an id.");
+            }
+            if (byId.put(step.id(), step) != null) {
+                throw new IllegalArgumentException("Duplicate workflow step '" + step.id() + "'.");
+            }
+            if (peers == null || peers.stream().noneMatch(peer -> peer.equalsIgnoreCase(step.agent()))) {
+                throw new IllegalArgumentException("Workflow step '" + step.id() + "' uses agent '" + step.agent() +
+                        "', which is not a downstream peer.");
+            }
+        }
+
+        // Kahn's algorithm: anything left over sits on a cycle
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (WorkflowStep step : byId.values()) {
+            for (String dependency : step.dependsOn()) {
+                if (!byId.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Workflow step '" + step.id() +
+                            "' depends on unknown step '" + dependency + "'.");
+                }
+                dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(step.id());
+            }
+            pending.put(step.id(), new HashSet<>(step.dependsOn()).size());
+        }
+
+        Deque<String> ready = new ArrayDeque<>();
+        pending.forEach((id, count) -> {
+            if (count == 0) {
+                ready.add(id);
+            }
+        });
+        List<WorkflowStep> ordered = new ArrayList<>(byId.size());
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            ordered.add(byId.get(id));
+            for (String dependent : dependents.getOrDefault(id, List.of())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (ordered.size() != byId.size()) {
+            throw new IllegalArgumentException("Workflow contains a cycle.");
+        }
+
+        // A template may only name steps that are guaranteed to finish first
+        Map<String, Set<String>> upstream = upstreamSteps(ordered);
+        for (WorkflowStep step : ordered) {
+            if (step.input() == null) {
+                continue;
+            }
+            Matcher placeholder = PLACEHOLDER.matcher(step.input());
+            while (placeholder.find()) {
+                String name = placeholder.group(1);
+                if (!INPUT.equals(name) && !upstream.get(step.id()).contains(name)) {
+                    throw new IllegalArgumentException("Workflow step '" + step.id() + "' uses {{" + name +
+                            "}}, which is not one of its dependencies.");
+                }
+            }
+        }
+        return List.copyOf(ordered);
+    }
+
+    /**
+     * @param ordered steps in topological order
+     * @return for every step, the ids of all steps it transitively depends on
+     */
+    private static Map<String, Set<String>> upstreamSteps(List<WorkflowStep> ordered) {
+        Map<String, Set<String>> upstream = new HashMap<>();
+        for (WorkflowStep step : ordered) {
+            Set<String> ancestors = new HashSet<>();
+            for (String dependency : step.dependsOn()) {
+                ancestors.add(dependency);
+                ancestors.addAll(upstream.get(dependency));
+            }
+            upstream.put(step.id(), Set.copyOf(ancestors));
+        }
+        return upstream;
+    }
+
+    private String inputFor(WorkflowStep step, String userMessage, Set<String> upstream,
+                            Map<String, CompletableFuture<String>> outputs) {
+        if (step.input() != null && !step.input().isBlank()) {
+            String input = step.input().replace("{{" + INPUT + "}}", userMessage);
+            // Upstream steps have all completed by the time this step runs
+            for (String stepId : upstream) {
+                String placeholder = "{{" + stepId + "}}";
+                if (input.contains(placeholder)) {
+                    input = input.replace(placeholder, outputs.get(stepId).join());
+                }
+            }
+            return input;
+        }
+
+        if (step.dependsOn().isEmpty()) {
+            return userMessage;
+        }
+        if (step.dependsOn().size() == 1) {
+            return outputs.get(step.dependsOn().get(0)).join();
+        }
+        StringBuilder input = new StringBuilder();
+        for (String dependency : step.dependsOn()) {
+            input.append(dependency).append(":\n").append(outputs.get(dependency).join()).append("\n\n");
+        }
+        return input.toString().trim();
+    }
+
+    private List<String> finalSteps(List<WorkflowStep> steps) {
+        Set<String> referenced = new HashSet<>();
+        for (WorkflowStep step : steps) {
+            referenced.addAll(step.dependsOn());
+        }
+        List<String> finalSteps = new ArrayList<>();
+        for (WorkflowStep step : steps) {
+            if (!referenced.contains(step.id())) {
+                finalSteps.add(step.id());
+            }
+        }
+        return finalSteps;
+    }
+
+    private ToolFactory.PeerDelegationTool findDelegationTool(AgentConfig config, String peerId) {
+        for (Object tool : config.tools) {
+            if (tool instanceof ToolFactory.PeerDelegationTool peerTool && peerTool.getPeerId().equalsIgnoreCase(peerId)) {
+                return peerTool;
+            }
+        }
+        throw new IllegalStateException("No delegation tool for workflow agent '" + peerId + "'.");
+    }
+}
@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS agent_tasks (
+    id VARCHAR(36) PRIMARY KEY,
+    agentId VARCHAR(255) NOT NULL,
+    state VARCHAR(32) NOT NULL,
+    message TEXT,
+    sessionId VARCHAR(255),
+    webhookUrl VARCHAR(2048),
+    result TEXT,
+    error VARCHAR(4096),
+    createdAt BIGINT NOT NULL DEFAULT 0,
+    updatedAt BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS agent_tasks_state_updated ON agent_tasks (state, updatedAt);
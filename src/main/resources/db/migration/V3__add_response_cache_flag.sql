@@ -0,0 +1,2 @@
+ALTER TABLE agents
+    ADD COLUMN IF NOT EXISTS responseCacheEnabled BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,3 @@
+ALTER TABLE agents
+    ADD COLUMN IF NOT EXISTS maxFanOut INTEGER NOT NULL DEFAULT 1,
+    ADD COLUMN IF NOT EXISTS fanOutAggregation VARCHAR(32);
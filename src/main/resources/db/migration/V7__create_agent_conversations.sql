@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS agent_conversations (
+    id VARCHAR(255) PRIMARY KEY,
+    agentId VARCHAR(255),
+    sessionId VARCHAR(255),
+    summary VARCHAR(16384),
+    turns JSONB NOT NULL DEFAULT '[]'::jsonb,
+    updatedAt BIGINT NOT NULL DEFAULT 0
+);
@@ -0,0 +1,2 @@
+ALTER TABLE agents
+    ADD COLUMN IF NOT EXISTS maxInputTokens INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+ALTER TABLE agents
+    ADD COLUMN IF NOT EXISTS rateLimitPerMinute INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS rateLimitBurst INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS maxConcurrentRequests INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,67 @@
+package org.acme.a2a.resource;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.containsString;
+
+@QuarkusTest
+class GatewayResourceTest {
+
+    @Test
+    void createsAValidAgent() {
+        given().contentType(ContentType.JSON)
+                .body(agent("valid-" + UUID.randomUUID(), List.of()))
+                .when().post("/agents")
+                .then().statusCode(201);
+    }
+
+    @Test
+    void rejectsADisallowedMcpHostWith400() {
+        given().contentType(ContentType.JSON)
+                .body(agent("mcp-" + UUID.randomUUID(), List.of("mcp:http://tools.example.net/mcp")))
+                .when().post("/agents")
+                .then().statusCode(400)
+                .body("error", containsString("is not allowed"));
+    }
+
+    @Test
+    void rejectsADisallowedMcpHostOnUpdateWith400() {
+        String agentId = "update-" + UUID.randomUUID();
+        given().contentType(ContentType.JSON)
+                .body(agent(agentId, List.of()))
+                .when().post("/agents")
+                .then().statusCode(201);
+
+        given().contentType(ContentType.JSON)
+                .body(agent(agentId, List.of("mcp:http://169.254.169.254/latest")))
+                .when().put("/agents/" + agentId)
+                .then().statusCode(400)
+                .body("error", containsString("is not allowed"));
+    }
+
+    @Test
+    void rejectsATakenIdWith400() {
+        String agentId = "taken-" + UUID.randomUUID();
+        given().contentType(ContentType.JSON).body(agent(agentId, List.of())).when().post("/agents")
+                .then().statusCode(201);
+
+        given().contentType(ContentType.JSON).body(agent(agentId, List.of())).when().post("/agents")
+                .then().statusCode(400)
+                .body("error", containsString("already taken"));
+    }
+
+    private static Map<String, Object> agent(String id, List<String> enabledTools) {
+        return Map.of(
+                "id", id,
+                "name", "Test Agent",
+                "systemPrompt", "You answer questions.",
+                "enabledTools", enabledTools);
+    }
+}
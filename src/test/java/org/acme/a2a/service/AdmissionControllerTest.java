@@ -0,0 +1,53 @@
+package org.acme.a2a.service;
+
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+
+    private final AgentConfig config = new AgentConfig("support-agent", "Support", "Helps customers.");
+
+    private AdmissionController admission;
+
+    @BeforeEach
+    void setUp() {
+        admission = new AdmissionController();
+        admission.defaultMaxConcurrent = 1;
+        admission.acquireTimeout = Duration.ofSeconds(5);
+    }
+
+    @Test
+    void aFullAgentRejectsAfterTheAcquireTimeout() {
+        admission.acquireTimeout = Duration.ofMillis(50);
+        admission.admit(config, invocation(Duration.ofSeconds(10)));
+
+        assertThrows(AgentBusyException.class, () -> admission.admit(config, invocation(Duration.ofSeconds(10))));
+    }
+
+    @Test
+    void waitingForASlotStopsAtTheDeadline() {
+        admission.admit(config, invocation(Duration.ofSeconds(10)));
+
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> admission.admit(config, invocation(Duration.ofMillis(100))));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+    }
+
+    @Test
+    void aClosedPermitFreesTheSlot() {
+        admission.admit(config, invocation(Duration.ofSeconds(10))).close();
+
+        admission.admit(config, invocation(Duration.ofMillis(100))).close();
+    }
+
+    private static InvocationContext invocation(Duration budget) {
+        return InvocationContext.root("support-agent", null).withDefaultDeadline(budget);
+    }
+}
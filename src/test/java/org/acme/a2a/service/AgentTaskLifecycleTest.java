@@ -0,0 +1,93 @@
+package org.acme.a2a.service;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.a2a.spec.TaskState;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.a2a.entity.AgentEntity;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.AgentTask;
+import org.acme.a2a.model.InvocationContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs tasks end to end against a mocked model endpoint.
+ */
+@QuarkusTest
+class AgentTaskLifecycleTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(10);
+
+    @Inject
+    AgentTaskService taskService;
+
+    @Inject
+    AgentService agentService;
+
+    @InjectMock
+    ChatModelGateway modelGateway;
+
+    private AgentConfig config;
+
+    @BeforeEach
+    void provisionAgent() {
+        AgentEntity entity = new AgentEntity();
+        entity.id = "task-agent-" + UUID.randomUUID();
+        entity.name = "Task Agent";
+        entity.systemPrompt = "You compile reports.";
+        entity.maxInputTokens = 200;
+        agentService.provision(entity);
+        config = agentService.loadConfig(entity.id);
+    }
+
+    @Test
+    void aTaskWithAReplyCompletes() {
+        when(modelGateway.chat(any(InvocationContext.class), anyList()))
+                .thenReturn(ChatResponse.builder().aiMessage(AiMessage.from("The report")).build());
+
+        AgentTask task = run("Compile the quarterly report");
+
+        assertEquals(TaskState.COMPLETED.asString(), task.state());
+        assertEquals("The report", task.result());
+        assertNull(task.error());
+    }
+
+    @Test
+    void aTaskWhoseModelIsDownFails() {
+        when(modelGateway.chat(any(InvocationContext.class), anyList()))
+                .thenThrow(new ModelUnavailableException("All model endpoints are unavailable."));
+
+        AgentTask task = run("Compile the annual report");
+
+        assertEquals(TaskState.FAILED.asString(), task.state());
+        assertNull(task.result());
+        assertTrue(task.error().contains("All model endpoints are unavailable."));
+    }
+
+    @Test
+    void aRejectedTaskFails() {
+        AgentTask task = run("report ".repeat(2_000));
+
+        assertEquals(TaskState.FAILED.asString(), task.state());
+        assertNull(task.result());
+        assertTrue(task.error().contains("too long"));
+    }
+
+    private AgentTask run(String message) {
+        AgentTask submitted = taskService.submit(config, message, null, null).await().indefinitely();
+        return taskService.get(config.id, submitted.id(), WAIT).await().atMost(WAIT.plusSeconds(5));
+    }
+}
@@ -0,0 +1,26 @@
+package org.acme.a2a.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AgentTaskServiceTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"127.0.0.1", "0.0.0.0", "10.1.2.3", "172.16.0.1", "192.168.1.10", "169.254.169.254",
+            "100.64.0.1", "224.0.0.1", "::1", "::", "fe80::1", "fd00::1", "::ffff:127.0.0.1"})
+    void webhooksCannotTargetInternalAddresses(String address) throws UnknownHostException {
+        assertTrue(AgentTaskService.isInternal(InetAddress.getByName(address)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"93.184.216.34", "100.128.0.1", "172.32.0.1", "2606:4700::6810:85e5"})
+    void webhooksCanTargetPublicAddresses(String address) throws UnknownHostException {
+        assertFalse(AgentTaskService.isInternal(InetAddress.getByName(address)));
+    }
+}
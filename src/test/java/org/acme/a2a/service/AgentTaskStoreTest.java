@@ -0,0 +1,130 @@
+package org.acme.a2a.service;
+
+import io.a2a.spec.TaskState;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.acme.a2a.model.AgentTask;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class AgentTaskStoreTest {
+
+    private static final String AGENT = "report-agent";
+
+    @Inject
+    AgentTaskStore store;
+
+    @Test
+    void newTasksAreSubmitted() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+
+        assertEquals(TaskState.SUBMITTED.asString(), task.state());
+        assertEquals(task, store.find(AGENT, task.id()));
+    }
+
+    @Test
+    void tasksAreOnlyVisibleToTheirAgent() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+
+        assertNull(store.find("other-agent", task.id()));
+    }
+
+    @Test
+    void startMovesASubmittedTaskToWorkingOnce() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+
+        assertTrue(store.start(task.id()));
+        assertFalse(store.start(task.id()));
+        assertEquals(TaskState.WORKING.asString(), store.find(AGENT, task.id()).state());
+    }
+
+    @Test
+    void finishStoresTheOutcomeOfAnUnfinishedTask() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+        store.start(task.id());
+
+        AgentTask finished = store.finish(task.id(), TaskState.COMPLETED, "The report", null);
+
+        assertNotNull(finished);
+        assertEquals(TaskState.COMPLETED.asString(), finished.state());
+        assertEquals("The report", finished.result());
+    }
+
+    @Test
+    void aFinishedTaskKeepsItsFirstOutcome() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+        store.start(task.id());
+        store.finish(task.id(), TaskState.CANCELED, null, null);
+
+        // The worker finishing after a cancel must not overwrite it
+        assertNull(store.finish(task.id(), TaskState.COMPLETED, "The report", null));
+        AgentTask current = store.find(AGENT, task.id());
+        assertEquals(TaskState.CANCELED.asString(), current.state());
+        assertNull(current.result());
+    }
+
+    @Test
+    void aTaskCanceledWhileQueuedIsNeverStarted() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+        store.finish(task.id(), TaskState.CANCELED, null, null);
+
+        assertFalse(store.start(task.id()));
+        assertEquals(TaskState.CANCELED.asString(), store.find(AGENT, task.id()).state());
+    }
+
+    @Test
+    void longErrorsAreTruncated() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+
+        AgentTask failed = store.finish(task.id(), TaskState.FAILED, null, "x".repeat(10_000));
+
+        assertEquals(4096, failed.error().length());
+    }
+
+    @Test
+    void failStaleSkipsTasksThatWereTouched() throws InterruptedException {
+        AgentTask queued = store.create(AGENT, "Compile a report", null, null);
+        AgentTask abandoned = store.create(AGENT, "Compile another report", null, null);
+        Thread.sleep(5);
+        long cutoff = System.currentTimeMillis();
+        Thread.sleep(5);
+
+        assertEquals(1, store.touch(List.of(queued.id())));
+        assertTrue(store.failStale(cutoff) >= 1);
+
+        assertEquals(TaskState.SUBMITTED.asString(), store.find(AGENT, queued.id()).state());
+        AgentTask failed = store.find(AGENT, abandoned.id());
+        assertEquals(TaskState.FAILED.asString(), failed.state());
+        assertNotNull(failed.error());
+    }
+
+    @Test
+    void touchIgnoresFinishedTasks() {
+        AgentTask task = store.create(AGENT, "Compile a report", null, null);
+        store.finish(task.id(), TaskState.COMPLETED, "The report", null);
+
+        assertEquals(0, store.touch(List.of(task.id())));
+        assertEquals(0, store.touch(List.of()));
+    }
+
+    @Test
+    void purgeDeletesOnlyFinishedTasks() throws InterruptedException {
+        AgentTask finished = store.create(AGENT, "Compile a report", null, null);
+        store.finish(finished.id(), TaskState.COMPLETED, "The report", null);
+        AgentTask unfinished = store.create(AGENT, "Compile another report", null, null);
+        Thread.sleep(5);
+
+        store.purgeFinishedBefore(System.currentTimeMillis());
+
+        assertNull(store.find(AGENT, finished.id()));
+        assertNotNull(store.find(AGENT, unfinished.id()));
+    }
+}
@@ -0,0 +1,194 @@
+package org.acme.a2a.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.InvocationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestCoalescerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AgentConfig config = new AgentConfig("support-agent", "Support", "Helps customers.");
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private RequestCoalescer coalescer;
+    private ExecutorService threads;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new RequestCoalescer();
+        coalescer.registry = registry;
+        coalescer.enabled = true;
+        coalescer.initMetrics();
+        threads = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    void identicalRequestsShareOneExecution() throws Exception {
+        Future<String> leader = startLeader(() -> "reply");
+        Future<String> follower = startFollower(counting(() -> "other reply"));
+
+        release.countDown();
+
+        assertEquals("reply", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("reply", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void differentMessagesAreNotShared() {
+        InvocationContext invocation = invocation(null);
+
+        assertEquals("a", coalescer.execute(config, "first", invocation, counting(() -> "a")));
+        assertEquals("b", coalescer.execute(config, "second", invocation, counting(() -> "b")));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void sessionRequestsAreNeverShared() throws Exception {
+        InvocationContext invocation = invocation("session-1");
+        Future<String> first = threads.submit(() -> coalescer.execute(config, "hello", invocation,
+                counting(() -> awaitRelease("first"))));
+
+        // Runs at once although an identical request is still in flight
+        assertEquals("second", coalescer.execute(config, "hello", invocation, counting(() -> "second")));
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void followersShareTheLeadersFailure() throws Exception {
+        IllegalStateException failure = new IllegalStateException("The model returned no reply.");
+        Future<String> leader = startLeader(() -> {
+            throw failure;
+        });
+        Future<String> follower = startFollower(counting(() -> "own reply"));
+
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, leader::get).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, follower::get).getCause());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void followersRetryWhenTheLeaderRanOutOfTime() throws Exception {
+        Future<String> leader = startLeader(() -> {
+            throw new DeadlineExceededException("The request deadline has passed.");
+        });
+        Future<String> follower = startFollower(counting(() -> "own reply"));
+
+        release.countDown();
+
+        assertInstanceOf(DeadlineExceededException.class,
+                assertThrows(ExecutionException.class, leader::get).getCause());
+        assertEquals("own reply", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void followersRetryWhenTheLeaderWasRateLimited() throws Exception {
+        Future<String> leader = startLeader(() -> {
+            throw new RateLimitedException("Rate limit exceeded.", Duration.ofSeconds(1));
+        });
+        Future<String> follower = startFollower(counting(() -> "own reply"));
+
+        release.countDown();
+
+        assertInstanceOf(RateLimitedException.class,
+                assertThrows(ExecutionException.class, leader::get).getCause());
+        assertEquals("own reply", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void followersStopWaitingAtTheirOwnDeadline() throws Exception {
+        Future<String> leader = startLeader(() -> "reply");
+        InvocationContext impatient = InvocationContext.root("support-agent", null)
+                .withDefaultDeadline(Duration.ofMillis(100));
+
+        assertThrows(DeadlineExceededException.class,
+                () -> coalescer.execute(config, "hello", impatient, counting(() -> "own reply")));
+
+        // The shared execution keeps running for everyone else
+        release.countDown();
+        assertEquals("reply", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Starts a request whose execution blocks until {@link #release} and then
+     * returns or throws the result of {@code outcome}.
+     */
+    private Future<String> startLeader(Supplier<String> outcome) throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        Future<String> leader = threads.submit(() -> coalescer.execute(config, "hello", invocation(null),
+                counting(() -> {
+                    running.countDown();
+                    awaitRelease(null);
+                    return outcome.get();
+                })));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    private Future<String> startFollower(Supplier<String> execution) throws InterruptedException {
+        double shared = sharedCount();
+        Future<String> follower = threads.submit(() -> coalescer.execute(config, "hello", invocation(null), execution));
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sharedCount() == shared && System.nanoTime() < giveUp) {
+            Thread.sleep(5);
+        }
+        assertEquals(shared + 1, sharedCount());
+        return follower;
+    }
+
+    private double sharedCount() {
+        return registry.counter("agent.coalescing.requests", "result", "shared").count();
+    }
+
+    private Supplier<String> counting(Supplier<String> execution) {
+        return () -> {
+            executions.incrementAndGet();
+            return execution.get();
+        };
+    }
+
+    private String awaitRelease(String reply) {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return reply;
+    }
+
+    private static InvocationContext invocation(String sessionId) {
+        return InvocationContext.root("support-agent", sessionId).withDefaultDeadline(Duration.ofSeconds(10));
+    }
+}
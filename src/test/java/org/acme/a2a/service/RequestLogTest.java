@@ -0,0 +1,42 @@
+package org.acme.a2a.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestLogTest {
+
+    private RequestLog requestLog;
+
+    @BeforeEach
+    void setUp() {
+        requestLog = new RequestLog();
+        requestLog.maxPayloadChars = 32;
+    }
+
+    @Test
+    void masksSecretsAndAddresses() {
+        assertEquals("mail <email>, key <credential>",
+                requestLog.redact("mail jane@example.com, key sk-0123456789abcdef"));
+    }
+
+    @Test
+    void aSecretOnTheCutIsNeverPartlyLogged() {
+        String message = "x".repeat(28) + " sk-0123456789abcdef";
+
+        String logged = requestLog.redact(message);
+
+        assertFalse(logged.contains("sk-"), logged);
+        assertTrue(logged.endsWith("...(" + message.length() + " chars)"), logged);
+    }
+
+    @Test
+    void longPayloadsAreCut() {
+        String logged = requestLog.redact("y".repeat(10_000));
+
+        assertEquals("y".repeat(32) + "...(10000 chars)", logged);
+    }
+}
@@ -0,0 +1,287 @@
+package org.acme.a2a.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.enterprise.inject.Vetoed;
+import org.acme.a2a.model.AgentConfig;
+import org.acme.a2a.model.CompiledPrompts;
+import org.acme.a2a.model.InvocationContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs {@link RoutingBatcher} against a local stub of the OpenAI chat
+ * completions endpoint that routes every message to {@code peer-<message>}.
+ */
+class RoutingBatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    // Batch ids the stub leaves out of its reply, and how long it takes to answer a batch
+    private volatile Set<Integer> omittedIds = Set.of();
+    private volatile long batchDelayMillis;
+
+    private HttpServer server;
+    private ExecutorService virtualThreads;
+    private RoutingBatcher batcher;
+    private AgentConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", this::complete);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+
+        virtualThreads = Executors.newVirtualThreadPerTaskExecutor();
+        batcher = new RoutingBatcher();
+        batcher.modelGateway = new StubGateway(URI.create("http://127.0.0.1:" + server.getAddress().getPort() +
+                "/v1/chat/completions"));
+        batcher.objectMapper = objectMapper;
+        batcher.registry = new SimpleMeterRegistry();
+        batcher.virtualThreads = virtualThreads;
+        batcher.enabled = true;
+        batcher.window = Duration.ofSeconds(5);
+
+        config = new AgentConfig("orchestrator", "Orchestrator", "Routes requests.");
+        config.prompts = new CompiledPrompts(SystemMessage.from("Routes requests."),
+                SystemMessage.from("Reply with {\"targetPeer\": \"...\"}."), null, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.shutdown();
+        virtualThreads.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    void routesConcurrentMessagesInOneUpstreamCall() throws Exception {
+        batcher.maxSize = 4;
+        batcher.init();
+
+        List<Future<String>> replies = routeConcurrently(List.of("a", "b", "c", "d"),
+                List.of(Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(10)));
+
+        assertEquals(List.of("peer-a", "peer-b", "peer-c", "peer-d"), targets(replies));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    void routesMessagesMissingFromTheBatchedReplyOnTheirOwn() throws Exception {
+        batcher.maxSize = 3;
+        batcher.init();
+        omittedIds = Set.of(2);
+
+        List<Future<String>> replies = routeConcurrently(List.of("a", "b", "c"),
+                List.of(Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(10)));
+
+        assertEquals(List.of("peer-a", "peer-b", "peer-c"), targets(replies));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void routesMessagesOnTheirOwnWhenTheTightestDeadlineEndsTheBatch() throws Exception {
+        batcher.maxSize = 2;
+        batcher.init();
+        batchDelayMillis = 1000;
+
+        List<Future<String>> replies = routeConcurrently(List.of("short", "long"),
+                List.of(Duration.ofMillis(300), Duration.ofSeconds(10)));
+
+        ExecutionException shortCaller = assertThrows(ExecutionException.class, () -> replies.get(0).get());
+        assertInstanceOf(DeadlineExceededException.class, shortCaller.getCause());
+        assertEquals("peer-long", target(replies.get(1).get()));
+    }
+
+    @Test
+    void neverBatchesMessagesOfDifferentRootAgents() throws Exception {
+        batcher.maxSize = 2;
+        batcher.window = Duration.ofMillis(100);
+        batcher.init();
+
+        Future<String> first = virtualThreads.submit(() -> batcher.route(config, "a",
+                InvocationContext.root("tenant-a", null).withDefaultDeadline(Duration.ofSeconds(10))));
+        Future<String> second = virtualThreads.submit(() -> batcher.route(config, "b",
+                InvocationContext.root("tenant-b", null).withDefaultDeadline(Duration.ofSeconds(10))));
+
+        assertEquals(List.of("peer-a", "peer-b"), targets(List.of(first, second)));
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    void routesAloneWhenBatchingIsDisabled() throws Exception {
+        batcher.maxSize = 4;
+        batcher.enabled = false;
+        batcher.init();
+
+        String reply = batcher.route(config, "a", invocation(Duration.ofSeconds(10)));
+
+        assertEquals("peer-a", target(reply));
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    private List<Future<String>> routeConcurrently(List<String> messages, List<Duration> budgets) {
+        List<Future<String>> replies = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            String message = messages.get(i);
+            InvocationContext invocation = invocation(budgets.get(i));
+            replies.add(virtualThreads.submit(() -> batcher.route(config, message, invocation)));
+        }
+        return replies;
+    }
+
+    private List<String> targets(List<Future<String>> replies) throws Exception {
+        List<String> targets = new ArrayList<>();
+        for (Future<String> reply : replies) {
+            targets.add(target(reply.get(10, TimeUnit.SECONDS)));
+        }
+        return targets;
+    }
+
+    private String target(String reply) throws IOException {
+        return objectMapper.readTree(reply).path("targetPeer").asText();
+    }
+
+    private static InvocationContext invocation(Duration budget) {
+        return InvocationContext.root("orchestrator", null).withDefaultDeadline(budget);
+    }
+
+    // The stub endpoint: a JSON array of {"id", "message"} is a batch, anything else a single message
+    private void complete(HttpExchange exchange) throws IOException {
+        upstreamCalls.incrementAndGet();
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        JsonNode messages = request.path("messages");
+        String content = messages.get(messages.size() - 1).path("content").asText();
+
+        String reply;
+        if (content.startsWith("[")) {
+            ArrayNode decisions = objectMapper.createArrayNode();
+            for (JsonNode message : objectMapper.readTree(content)) {
+                int id = message.path("id").asInt();
+                if (!omittedIds.contains(id)) {
+                    decisions.addObject().put("id", id).put("targetPeer", "peer-" + message.path("message").asText());
+                }
+            }
+            reply = decisions.toString();
+            sleep(batchDelayMillis);
+        } else {
+            reply = objectMapper.createObjectNode().put("targetPeer", "peer-" + content).toString();
+        }
+
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("id", "chatcmpl-stub")
+                .put("object", "chat.completion")
+                .put("model", "stub");
+        response.putArray("choices").addObject()
+                .put("index", 0)
+                .put("finish_reason", "stop")
+                .putObject("message")
+                .put("role", "assistant")
+                .put("content", reply);
+        byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // The caller gave up on this reply
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sends chat calls to the stub as OpenAI chat completion requests, bounded
+     * by the caller's deadline like {@link ChatModelGateway}.
+     */
+    @Vetoed
+    private final class StubGateway extends ChatModelGateway {
+
+        private final URI endpoint;
+        private final HttpClient client = HttpClient.newHttpClient();
+
+        StubGateway(URI endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public ChatResponse chat(InvocationContext invocation, ChatMessage... messages) {
+            Duration budget = invocation.remaining(Duration.ofSeconds(10));
+            if (budget.isNegative() || budget.isZero()) {
+                throw new DeadlineExceededException("The request deadline has passed.");
+            }
+
+            ObjectNode request = objectMapper.createObjectNode().put("model", "stub");
+            ArrayNode payload = request.putArray("messages");
+            for (ChatMessage message : messages) {
+                if (message instanceof SystemMessage system) {
+                    payload.addObject().put("role", "system").put("content", system.text());
+                } else if (message instanceof UserMessage user) {
+                    payload.addObject().put("role", "user").put("content", user.singleText());
+                }
+            }
+            HttpRequest httpRequest = HttpRequest.newBuilder(endpoint)
+                    .timeout(budget)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(request.toString()))
+                    .build();
+            try {
+                HttpResponse<String> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+                String content = objectMapper.readTree(response.body())
+                        .path("choices").path(0).path("message").path("content").asText();
+                return ChatResponse.builder().aiMessage(AiMessage.from(content)).build();
+            } catch (HttpTimeoutException e) {
+                throw new DeadlineExceededException("The request deadline passed before the stub answered.");
+            } catch (IOException e) {
+                throw new ModelUnavailableException("Stub call failed: " + e.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ModelUnavailableException("Interrupted while waiting for the stub.", e);
+            }
+        }
+    }
+}
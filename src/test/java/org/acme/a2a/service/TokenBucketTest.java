@@ -0,0 +1,55 @@
+package org.acme.a2a.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsABurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(60, 3);
+
+        assertEquals(0, bucket.tryConsume());
+        assertEquals(0, bucket.tryConsume());
+        assertEquals(0, bucket.tryConsume());
+        assertTrue(bucket.tryConsume() > 0);
+    }
+
+    @Test
+    void reportsTheWaitUntilTheNextToken() {
+        // One token per second
+        TokenBucket bucket = new TokenBucket(60, 1);
+        bucket.tryConsume();
+
+        long wait = bucket.tryConsume();
+
+        assertTrue(wait > 0);
+        assertTrue(wait <= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        // One token per millisecond
+        TokenBucket bucket = new TokenBucket(60_000, 1);
+        bucket.tryConsume();
+
+        Thread.sleep(20);
+
+        assertEquals(0, bucket.tryConsume());
+    }
+
+    @Test
+    void neverRefillsBeyondCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(60_000, 2);
+
+        Thread.sleep(20);
+
+        assertEquals(0, bucket.tryConsume());
+        assertEquals(0, bucket.tryConsume());
+        assertTrue(bucket.tryConsume() > 0);
+    }
+}
@@ -0,0 +1,106 @@
+package org.acme.a2a.service;
+
+import org.acme.a2a.model.WorkflowStep;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowExecutorTest {
+
+    private static final List<String> PEERS = List.of("research-agent", "writer-agent", "review-agent");
+
+    @Test
+    void ordersStepsAfterTheirDependencies() {
+        List<WorkflowStep> ordered = WorkflowExecutor.plan(List.of(
+                step("publish", "review-agent", List.of("draft", "facts"), null),
+                step("draft", "writer-agent", List.of("facts"), null),
+                step("facts", "research-agent", List.of(), null)), PEERS);
+
+        assertEquals(List.of("facts", "draft", "publish"), ordered.stream().map(WorkflowStep::id).toList());
+    }
+
+    @Test
+    void acceptsAnEmptyWorkflow() {
+        assertTrue(WorkflowExecutor.plan(null, PEERS).isEmpty());
+        assertTrue(WorkflowExecutor.plan(List.of(), PEERS).isEmpty());
+    }
+
+    @Test
+    void matchesPeersIgnoringCase() {
+        assertEquals(1, WorkflowExecutor.plan(List.of(step("facts", "Research-Agent", List.of(), null)), PEERS).size());
+    }
+
+    @Test
+    void rejectsCycles() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> WorkflowExecutor.plan(List.of(
+                step("a", "research-agent", List.of("c"), null),
+                step("b", "writer-agent", List.of("a"), null),
+                step("c", "review-agent", List.of("b"), null)), PEERS));
+
+        assertTrue(e.getMessage().contains("cycle"));
+    }
+
+    @Test
+    void rejectsUnknownDependencies() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> WorkflowExecutor.plan(List.of(
+                step("draft", "writer-agent", List.of("facts"), null)), PEERS));
+
+        assertTrue(e.getMessage().contains("unknown step 'facts'"));
+    }
+
+    @Test
+    void rejectsDuplicateStepIds() {
+        assertThrows(IllegalArgumentException.class, () -> WorkflowExecutor.plan(List.of(
+                step("facts", "research-agent", List.of(), null),
+                step("facts", "writer-agent", List.of(), null)), PEERS));
+    }
+
+    @Test
+    void rejectsStepsWithoutAnId() {
+        assertThrows(IllegalArgumentException.class, () -> WorkflowExecutor.plan(List.of(
+                step(" ", "research-agent", List.of(), null)), PEERS));
+    }
+
+    @Test
+    void rejectsAgentsThatAreNotPeers() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> WorkflowExecutor.plan(List.of(
+                step("facts", "billing-agent", List.of(), null)), PEERS));
+
+        assertTrue(e.getMessage().contains("not a downstream peer"));
+    }
+
+    @Test
+    void acceptsPlaceholdersForTransitiveDependencies() {
+        List<WorkflowStep> ordered = WorkflowExecutor.plan(List.of(
+                step("facts", "research-agent", List.of(), null),
+                step("draft", "writer-agent", List.of("facts"), null),
+                step("publish", "review-agent", List.of("draft"),
+                        "Check {{draft}} against {{facts}} for: {{input}}")), PEERS);
+
+        assertEquals(3, ordered.size());
+    }
+
+    @Test
+    void rejectsPlaceholdersForStepsThatMayNotHaveFinished() {
+        // "draft" runs in parallel with "facts", so {{facts}} could still be empty
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> WorkflowExecutor.plan(List.of(
+                step("facts", "research-agent", List.of(), null),
+                step("draft", "writer-agent", List.of(), "Write about {{facts}}")), PEERS));
+
+        assertTrue(e.getMessage().contains("{{facts}}"));
+    }
+
+    @Test
+    void rejectsPlaceholdersForUnknownSteps() {
+        assertThrows(IllegalArgumentException.class, () -> WorkflowExecutor.plan(List.of(
+                step("draft", "writer-agent", List.of(), "Write about {{research}}")), PEERS));
+    }
+
+    private static WorkflowStep step(String id, String agent, List<String> dependsOn, String input) {
+        return new WorkflowStep(id, agent, dependsOn, input);
+    }
+}